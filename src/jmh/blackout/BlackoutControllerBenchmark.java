@@ -0,0 +1,143 @@
+package blackout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.FileTransferException;
+import unsw.response.models.EntityInfoResponse;
+import unsw.utils.Angle;
+
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+/**
+ * Benchmarks the hot paths of BlackoutController on random constellations.
+ *
+ * Run a subset with e.g. gradle jmh -PjmhArgs="BlackoutController -p entities=1000"
+ * as the largest sizes take a while to set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackoutControllerBenchmark {
+    private static final String[] SATELLITE_TYPES = { "StandardSatellite", "RelaySatellite",
+            "TeleportingSatellite" };
+    private static final String[] DEVICE_TYPES = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+
+    @Param({ "10", "1000", "10000", "100000" })
+    private int entities;
+
+    @Param({ "1", "100" })
+    private int filesPerDevice;
+
+    private BlackoutController controller;
+    private List<String> ids;
+    private List<String> deviceIds;
+    private List<String> targets;
+    private int next;
+    private int sends;
+
+    /*
+     * Builds a new constellation each iteration so sendFile and simulate
+     * don't keep piling up state across iterations
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        Random random = new Random(2511);
+        controller = new BlackoutController();
+        ids = new ArrayList<String>();
+        deviceIds = new ArrayList<String>();
+
+        for (int i = 0; i < entities; i++) {
+            Angle position = Angle.fromDegrees(random.nextDouble() * 360);
+            if (i % 2 == 0) {
+                String id = "Satellite" + i;
+                double height = RADIUS_OF_JUPITER + 1000 + random.nextDouble() * 100000;
+                controller.createSatellite(id, SATELLITE_TYPES[random.nextInt(SATELLITE_TYPES.length)], height,
+                        position);
+                ids.add(id);
+            } else {
+                String id = "Device" + i;
+                controller.createDevice(id, DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)], position);
+                for (int f = 0; f < filesPerDevice; f++) {
+                    controller.addFileToDevice(id, "File" + f, "Some content for file " + f);
+                }
+                ids.add(id);
+                deviceIds.add(id);
+            }
+        }
+
+        // Pick a satellite each device can see up front so sendFile is measured on its own
+        targets = new ArrayList<String>();
+        for (String deviceId : deviceIds) {
+            List<String> inRange = controller.communicableEntitiesInRange(deviceId);
+            targets.add(inRange.isEmpty() ? null : inRange.get(0));
+        }
+        next = 0;
+        sends = 0;
+    }
+
+    private int nextIndex(int size) {
+        next = (next + 1) % size;
+        return next;
+    }
+
+    @Benchmark
+    public void simulate() {
+        controller.simulate();
+    }
+
+    @Benchmark
+    public List<String> communicableEntitiesInRange() {
+        return controller.communicableEntitiesInRange(ids.get(nextIndex(ids.size())));
+    }
+
+    @Benchmark
+    public EntityInfoResponse getInfo() {
+        return controller.getInfo(ids.get(nextIndex(ids.size())));
+    }
+
+    /*
+     * Sends files round robin from every device, once satellites fill up this
+     * measures the lookups and checks that end in an exception
+     */
+    @Benchmark
+    public void sendFile(Blackhole blackhole) {
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        int index = sends % deviceIds.size();
+        String fileName = "File" + (sends / deviceIds.size()) % filesPerDevice;
+        sends = (sends + 1) % (deviceIds.size() * filesPerDevice);
+
+        String target = targets.get(index);
+        if (target == null) {
+            return;
+        }
+
+        try {
+            controller.sendFile(fileName, deviceIds.get(index), target);
+        } catch (FileTransferException e) {
+            blackhole.consume(e);
+        }
+    }
+}
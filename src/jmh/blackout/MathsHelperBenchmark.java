@@ -0,0 +1,102 @@
+package blackout;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+/**
+ * Compares checking every pair of a random constellation with separate
+ * distance and visibility calls against the fused isCommunicable kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathsHelperBenchmark {
+    private static final double RANGE = 150000;
+
+    @Param({ "100", "1000" })
+    private int size;
+
+    private double[] heights;
+    private Angle[] angles;
+    private double[] xs;
+    private double[] ys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2511);
+        heights = new double[size];
+        angles = new Angle[size];
+        xs = new double[size];
+        ys = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            heights[i] = RADIUS_OF_JUPITER + random.nextDouble() * 300000;
+            angles[i] = Angle.fromDegrees(random.nextDouble() * 360);
+            xs[i] = Math.cos(angles[i].toRadians()) * heights[i];
+            ys[i] = Math.sin(angles[i].toRadians()) * heights[i];
+        }
+    }
+
+    @Benchmark
+    public int separateAngleChecks() {
+        int communicable = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double distance = MathsHelper.getDistance(heights[i], angles[i], heights[j], angles[j]);
+                boolean visible = MathsHelper.isVisible(heights[i], angles[i], heights[j], angles[j]);
+                if (distance <= RANGE && visible) {
+                    communicable++;
+                }
+            }
+        }
+        return communicable;
+    }
+
+    @Benchmark
+    public int separateCoordinateChecks() {
+        int communicable = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double distance = MathsHelper.getDistance(xs[i], ys[i], xs[j], ys[j]);
+                boolean visible = MathsHelper.isVisible(xs[i], ys[i], xs[j], ys[j]);
+                if (distance <= RANGE && visible) {
+                    communicable++;
+                }
+            }
+        }
+        return communicable;
+    }
+
+    @Benchmark
+    public int fusedCommunicable() {
+        int communicable = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (MathsHelper.isCommunicable(xs[i], ys[i], xs[j], ys[j], RANGE)) {
+                    communicable++;
+                }
+            }
+        }
+        return communicable;
+    }
+}
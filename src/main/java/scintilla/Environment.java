@@ -6,6 +6,12 @@ public class Environment {
     private static volatile Integer port = null;
     private static volatile Boolean headless = null;
     private static volatile Boolean securable = null;
+    private static volatile Boolean virtualThreads = null;
+    private static volatile String snapshotDirectory = null;
+    private static volatile Integer sessionIdleMinutes = null;
+    private static volatile Integer maxSessions = null;
+    private static volatile String journalDirectory = null;
+    private static volatile Integer journalCommitMillis = null;
 
     public static final synchronized String getIPAddress() {
         return (ipAddress == null && (ipAddress = System.getenv(PREFIX + "ADDRESS")) == null) ? ipAddress = "0.0.0.0"
@@ -22,10 +28,55 @@ public class Environment {
         }
     }
 
+    public static final synchronized String getSnapshotDirectory() {
+        return (snapshotDirectory == null && (snapshotDirectory = System.getenv(PREFIX + "SNAPSHOT_DIR")) == null)
+                ? snapshotDirectory = "snapshots"
+                : snapshotDirectory;
+    }
+
+    public static final synchronized int getSessionIdleMinutes() {
+        if (sessionIdleMinutes != null)
+            return sessionIdleMinutes;
+        try {
+            return sessionIdleMinutes = Integer.parseInt(System.getenv(PREFIX + "SESSION_IDLE_MINUTES"));
+        } catch (Exception e) {
+            return sessionIdleMinutes = 30;
+        }
+    }
+
+    public static final synchronized int getMaxSessions() {
+        if (maxSessions != null)
+            return maxSessions;
+        try {
+            return maxSessions = Integer.parseInt(System.getenv(PREFIX + "MAX_SESSIONS"));
+        } catch (Exception e) {
+            return maxSessions = 1000;
+        }
+    }
+
+    public static final synchronized String getJournalDirectory() {
+        return journalDirectory == null ? journalDirectory = System.getenv(PREFIX + "JOURNAL_DIR") : journalDirectory;
+    }
+
+    public static final synchronized int getJournalCommitMillis() {
+        if (journalCommitMillis != null)
+            return journalCommitMillis;
+        try {
+            return journalCommitMillis = Integer.parseInt(System.getenv(PREFIX + "JOURNAL_COMMIT_MILLIS"));
+        } catch (Exception e) {
+            return journalCommitMillis = 50;
+        }
+    }
+
     public static final synchronized boolean isHeadless() {
         return headless != null ? headless.booleanValue() : (headless = (System.getenv(PREFIX + "HEADLESS") != null));
     }
 
+    public static final synchronized boolean isVirtualThreads() {
+        return virtualThreads != null ? virtualThreads.booleanValue()
+                : (virtualThreads = (System.getenv(PREFIX + "VIRTUAL_THREADS") != null));
+    }
+
     public static final synchronized boolean isSecure() {
         return securable != null ? securable.booleanValue() : (securable = (System.getenv(PREFIX + "SECURE") != null));
     }
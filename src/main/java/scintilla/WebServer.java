@@ -2,6 +2,9 @@ package scintilla;
 
 import static spark.Spark.*;
 
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
 /**
  * Package only webserver, as to not expose it outside this package.
  */
@@ -9,8 +12,12 @@ final class WebServer {
     private String ipAddress = Environment.getIPAddress();
     private int port = Environment.getPort();
     private boolean isSecure = Environment.isSecure();
+    private boolean isVirtualThreads = Environment.isVirtualThreads();
 
     public void initialize() {
+        if (isVirtualThreads) {
+            useVirtualThreads();
+        }
         port(port);
         ipAddress(ipAddress);
         // if (isSecure) {
@@ -28,6 +35,16 @@ final class WebServer {
         });
     }
 
+    // Swaps Jetty's bounded pool for a virtual thread per request, must happen before the server starts
+    private void useVirtualThreads() {
+        VirtualThreadPool pool = VirtualThreadPool.create();
+        if (pool == null) {
+            System.err.println("Virtual threads need Java 21 or later, using the default thread pool.");
+            return;
+        }
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(), new EmbeddedJettyFactory().withThreadPool(pool));
+    }
+
     public void finalize() {
         awaitInitialization();
     }
@@ -1,140 +1,424 @@
 package unsw;
 
 import spark.Request;
+import spark.Response;
 import spark.Spark;
 import unsw.blackout.BlackoutController;
 import unsw.blackout.FileTransferException;
+import unsw.blackout.MutationJournal;
+import unsw.response.BinaryStateWriter;
 import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
 import unsw.utils.Angle;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSerializationContext;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import scintilla.Environment;
 import scintilla.Scintilla;
 
 public class App {
-    private static volatile Map<String, BlackoutController> sessionStates = new HashMap<>();
+    private static final SessionStore<ControllerSession> sessionStates = new SessionStore<>(
+            Environment.getSessionIdleMinutes(), TimeUnit.MINUTES, Environment.getMaxSessions(),
+            (id, session, cause) -> {
+                System.err.println("Evicted session " + id + " (" + cause + ")");
+                try {
+                    session.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the journal of session " + id + ": " + e.getMessage());
+                }
+            });
+    private static final Type ENTITY_INFO_MAP = new TypeToken<Map<String, EntityInfoResponse>>() {
+    }.getType();
+    private static final Type ENTITY_DELTA_MAP = new TypeToken<Map<String, EntityDeltaResponse>>() {
+    }.getType();
+    private static final long STREAM_KEEPALIVE_MILLIS = 15000;
+    // A year of minutes
+    private static final int MAX_PREDICTION_MINUTES = 525600;
 
-    private static synchronized BlackoutController getBlackoutController(Request request) {
+    private static ControllerSession getSession(Request request) {
         String session = request.session().id();
         if (session == null) {
             throw new RuntimeException("No State found");
         }
 
-        if (sessionStates.containsKey(session)) {
-            return sessionStates.get(session);
-        } else {
-            BlackoutController bc = new BlackoutController();
-            sessionStates.put(session, bc);
-            return bc;
+        return sessionStates.get(session, () -> newSession(session));
+    }
+
+    /**
+     * Creates a session, journaling its changes to JOURNAL_DIR when that is set.
+     */
+    private static ControllerSession newSession(String sessionId) {
+        String directory = Environment.getJournalDirectory();
+        if (directory == null) {
+            return new ControllerSession();
+        }
+
+        try {
+            Path journals = Paths.get(directory);
+            Files.createDirectories(journals);
+            Path path = journals.resolve(sessionId.replaceAll("[^A-Za-z0-9_-]", "_") + ".journal");
+            return new ControllerSession(new MutationJournal(path, Environment.getJournalCommitMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the journal for session " + sessionId, e);
+        }
+    }
+
+    /**
+     * Sweeps idle sessions once a minute on a background thread.
+     */
+    private static void startSessionSweeper() {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(sessionStates::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Writes a JSON body for a route as it is produced, straight to the response.
+     */
+    private interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Writes a binary body for a route straight to the response.
+     */
+    private interface BinaryBody {
+        void write(BinaryStateWriter writer) throws IOException;
+    }
+
+    private static void addCorsHeaders(Response response) {
+        response.header("Access-Control-Allow-Origin", "*");
+        response.header("Access-Control-Allow-Methods", "*");
+        response.header("Access-Control-Allow-Headers", "*");
+    }
+
+    /**
+     * Streams a JSON body to the client so large results never have to be held
+     * in memory in full. Headers are set up front as the response may be
+     * committed before the route returns.
+     */
+    private static String streamJson(Response response, Gson gson, JsonBody body) throws IOException {
+        response.type("application/json");
+        addCorsHeaders(response);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.raw().getOutputStream(),
+                StandardCharsets.UTF_8));
+        JsonWriter writer = gson.newJsonWriter(out);
+        body.write(writer);
+        writer.flush();
+        return "";
+    }
+
+    private static String streamBinary(Response response, BinaryBody body) throws IOException {
+        response.type(BinaryStateWriter.CONTENT_TYPE);
+        addCorsHeaders(response);
+
+        BinaryStateWriter writer = new BinaryStateWriter(response.raw().getOutputStream());
+        body.write(writer);
+        writer.flush();
+        return "";
+    }
+
+    /**
+     * Whether the client explicitly accepts the binary format, anything else
+     * including a wildcard gets JSON.
+     */
+    private static boolean acceptsBinary(Request request) {
+        String accept = request.headers("Accept");
+        if (accept == null) {
+            return false;
+        }
+        for (String range : accept.split(",")) {
+            if (range.split(";")[0].trim().equalsIgnoreCase(BinaryStateWriter.CONTENT_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeBinarySnapshot(BinaryStateWriter writer, BlackoutController bc, List<String> ids)
+            throws IOException {
+        List<EntityInfoResponse> entities = entityInfo(bc, ids);
+        writer.writeHeader(entities, 1);
+        writer.writeStep(entities);
+    }
+
+    /**
+     * Simulates the given number of steps writing each one as binary records.
+     * Simulating never adds entities or file names, so the state before the
+     * first step covers the string table.
+     */
+    private static void writeBinarySimulation(BinaryStateWriter writer, BlackoutController bc, int steps)
+            throws IOException {
+        List<String> ids = allEntityIds(bc);
+        writer.writeHeader(entityInfo(bc, ids), steps);
+        for (int i = 0; i < steps; i++) {
+            bc.simulate();
+            writer.writeStep(entityInfo(bc, ids));
+        }
+    }
+
+    private static List<EntityInfoResponse> entityInfo(BlackoutController bc, List<String> ids) {
+        List<EntityInfoResponse> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(bc.getInfo(id));
+        }
+        return result;
+    }
+
+    private static List<String> allEntityIds(BlackoutController bc) {
+        List<String> ids = new ArrayList<>(bc.listSatelliteIds());
+        ids.addAll(bc.listDeviceIds());
+        return ids;
+    }
+
+    private static void writeEntityInfo(JsonWriter writer, Gson gson, BlackoutController bc, List<String> ids)
+            throws IOException {
+        writer.beginObject();
+        for (String id : ids) {
+            writer.name(id);
+            gson.toJson(bc.getInfo(id), EntityInfoResponse.class, writer);
         }
+        writer.endObject();
+    }
+
+    private static void writeAllEntityInfo(JsonWriter writer, Gson gson, BlackoutController bc) throws IOException {
+        writeEntityInfo(writer, gson, bc, allEntityIds(bc));
+    }
+
+    /**
+     * Simulates the given number of steps, writing the first in full and only
+     * what changed for each step after it. Only the previous step is kept.
+     */
+    private static void writeSimulationDeltas(JsonWriter writer, Gson gson, BlackoutController bc, int steps)
+            throws IOException {
+        writer.beginObject();
+        writer.name("reconstruction").value(SimulationDeltaResponse.RECONSTRUCTION);
+
+        bc.simulate();
+        Map<String, EntityInfoResponse> previous = ContinuousSimulation.allEntityInfo(bc);
+        writer.name("keyframe");
+        gson.toJson(previous, ENTITY_INFO_MAP, writer);
+
+        writer.name("deltas").beginArray();
+        for (int i = 1; i < steps; i++) {
+            bc.simulate();
+            Map<String, EntityInfoResponse> current = ContinuousSimulation.allEntityInfo(bc);
+            gson.toJson(SimulationDeltaResponse.diff(previous, current), ENTITY_DELTA_MAP, writer);
+            previous = current;
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Streams a session's continuous simulation as server-sent events until
+     * the client goes away. The first event is a keyframe with every entity,
+     * each later one only has what changed since the last frame this client
+     * was sent, so frames skipped for a slow client are folded into the next.
+     */
+    private static void streamSimulation(Request request, Response response, Gson gson, double ticksPerSecond)
+            throws IOException, InterruptedException {
+        String sessionId = request.session().id();
+        ContinuousSimulation simulation = getSession(request).getContinuousSimulation();
+
+        response.type("text/event-stream");
+        response.header("Cache-Control", "no-cache");
+        addCorsHeaders(response);
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.raw().getOutputStream(),
+                StandardCharsets.UTF_8));
+
+        simulation.join(ticksPerSecond);
+        try {
+            ContinuousSimulation.Frame previous = null;
+            while (true) {
+                ContinuousSimulation.Frame frame = simulation.awaitAfter(
+                        previous == null ? 0 : previous.getTick(), STREAM_KEEPALIVE_MILLIS);
+                sessionStates.touch(sessionId);
+                if (frame == null) {
+                    // Comment lines keep proxies from timing out and notice clients that have gone
+                    out.write(": keepalive\n\n");
+                } else if (previous == null) {
+                    writeEvent(out, "keyframe", frame.getTick(), gson.toJson(frame.getEntities(), ENTITY_INFO_MAP));
+                } else {
+                    Map<String, EntityDeltaResponse> delta = SimulationDeltaResponse.diff(previous.getEntities(),
+                            frame.getEntities());
+                    writeEvent(out, "delta", frame.getTick(), gson.toJson(delta, ENTITY_DELTA_MAP));
+                }
+                out.flush();
+                if (frame != null) {
+                    previous = frame;
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected
+        } finally {
+            simulation.leave(ticksPerSecond);
+        }
+    }
+
+    // Compact JSON has no newlines so it always fits on one data line
+    private static void writeEvent(Writer out, String event, long tick, String json) throws IOException {
+        out.write("event: " + event + "\nid: " + tick + "\ndata: " + json + "\n\n");
+    }
+
+    /**
+     * Where the named snapshot lives, names are limited to letters, digits,
+     * '-' and '_' so they can't point outside the snapshot directory.
+     */
+    private static Path snapshotPath(String name) throws IOException {
+        if (name == null || !name.matches("[A-Za-z0-9_-]{1,64}")) {
+            throw new IllegalArgumentException("Invalid snapshot name " + name);
+        }
+        Path directory = Paths.get(Environment.getSnapshotDirectory());
+        Files.createDirectories(directory);
+        return directory.resolve(name + ".snapshot");
     }
 
     public static void main(String[] args) throws Exception {
         Scintilla.initialize();
+        startSessionSweeper();
         GsonBuilder gsonBuilder = new GsonBuilder();
 
         JsonSerializer<Angle> serializer = (Angle angle, Type typeOfId, JsonSerializationContext context) -> {
             return new JsonPrimitive(angle.toRadians());
         };
         gsonBuilder.registerTypeAdapter(Angle.class, serializer);
+        // Files still being transferred only hold a view of their content, it is copied out as it is written
+        JsonSerializer<FileInfoResponse> fileSerializer = (FileInfoResponse file, Type typeOfId,
+                JsonSerializationContext context) -> {
+            JsonObject json = new JsonObject();
+            json.addProperty("filename", file.getFilename());
+            json.addProperty("data", file.getData());
+            json.addProperty("fileSize", file.getFileSize());
+            json.addProperty("isFileComplete", file.isFileComplete());
+            return json;
+        };
+        gsonBuilder.registerTypeAdapter(FileInfoResponse.class, fileSerializer);
         Gson gson = gsonBuilder.create();
 
-        Spark.after((request, response) -> {
-            response.header("Access-Control-Allow-Origin", "*");
-            response.header("Access-Control-Allow-Methods", "*");
-            response.header("Access-Control-Allow-Headers", "*");
-        });
+        Spark.after((request, response) -> addCorsHeaders(response));
 
         Spark.put("/api/device/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
                 boolean isMoving = Boolean.parseBoolean(request.queryParams("isMoving"));
                 bc.createDevice(request.queryParams("deviceId"), request.queryParams("type"), position, isMoving);
                 return "";
-            }
+            });
         }, gson::toJson);
 
         Spark.delete("/api/device/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 bc.removeDevice(request.queryParams("deviceId"));
                 return "";
-            }
+            });
         }, gson::toJson);
 
         Spark.put("/api/satellite/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
                 double height = Double.parseDouble(request.queryParams("height"));
                 bc.createSatellite(request.queryParams("satelliteId"), request.queryParams("type"), height, position);
                 return "";
-            }
+            });
         }, gson::toJson);
 
         Spark.delete("/api/satellite/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 bc.removeSatellite(request.queryParams("satelliteId"));
                 return "";
-            }
+            });
         }, gson::toJson);
 
         Spark.get("/api/entity/info/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).read(bc -> {
                 return bc.getInfo(request.queryParams("id"));
-            }
+            });
         }, gson::toJson);
 
         Spark.post("/api/device/file/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 bc.addFileToDevice(request.queryParams("deviceId"), request.queryParams("fileName"), request.body());
                 return "";
-            }
+            });
         }, gson::toJson);
 
-        Spark.get("/api/device/all/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Map<String, EntityInfoResponse> result = new HashMap<>();
-                bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                return result;
-            }
-        }, gson::toJson);
+        // The bulk endpoints send JSON unless the client asks for BinaryStateWriter.CONTENT_TYPE
+        Spark.get("/api/device/all/", (request, response) -> {
+            return getSession(request).read(bc -> {
+                if (acceptsBinary(request)) {
+                    return streamBinary(response, writer -> writeBinarySnapshot(writer, bc, bc.listDeviceIds()));
+                }
+                return streamJson(response, gson, writer -> writeEntityInfo(writer, gson, bc, bc.listDeviceIds()));
+            });
+        });
 
-        Spark.get("/api/satellite/all/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Map<String, EntityInfoResponse> result = new HashMap<>();
-                bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                return result;
-            }
-        }, gson::toJson);
+        Spark.get("/api/satellite/all/", (request, response) -> {
+            return getSession(request).read(bc -> {
+                if (acceptsBinary(request)) {
+                    return streamBinary(response,
+                            writer -> writeBinarySnapshot(writer, bc, bc.listSatelliteIds()));
+                }
+                return streamJson(response, gson,
+                        writer -> writeEntityInfo(writer, gson, bc, bc.listSatelliteIds()));
+            });
+        });
 
         Spark.get("/api/entity/entitiesInRange/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).read(bc -> {
                 return bc.communicableEntitiesInRange(request.queryParams("id")).stream().map(e -> bc.getInfo(e))
                         .collect(Collectors.toList());
+            });
+        }, gson::toJson);
+
+        // When fromId will be in direct contact with toId over the next horizon minutes (a day by default)
+        Spark.get("/api/contact/windows/", "application/json", (request, response) -> {
+            int horizon;
+            try {
+                horizon = Integer.parseInt(request.queryParamOrDefault("horizon", "1440"));
+            } catch (NumberFormatException e) {
+                horizon = 1440;
             }
+            int horizonMinutes = Math.min(Math.max(horizon, 0), MAX_PREDICTION_MINUTES);
+
+            return getSession(request).read(bc -> {
+                return bc.predictContactWindows(request.queryParams("fromId"), request.queryParams("toId"),
+                        horizonMinutes);
+            });
         }, gson::toJson);
 
         Spark.post("/api/sendFile/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 try {
                     bc.sendFile(request.queryParams("fileName"), request.queryParams("fromId"),
                             request.queryParams("toId"));
@@ -142,22 +426,59 @@ public class App {
                 } catch (FileTransferException ex) {
                     return ex.getClass().getSimpleName() + ":" + ex.getMessage();
                 }
+            });
+        }, gson::toJson);
+
+        // Applies a JSON array of BatchOperation under one lock, returning a result for each
+        Spark.post("/api/batch/", "application/json", (request, response) -> {
+            BatchOperation[] operations = gson.fromJson(request.body(), BatchOperation[].class);
+            if (operations == null) {
+                operations = new BatchOperation[0];
             }
+            BatchOperation[] batch = operations;
+            return getSession(request).write(bc -> {
+                List<String> results = new ArrayList<>(batch.length);
+                for (BatchOperation operation : batch) {
+                    results.add(operation.apply(bc));
+                }
+                return results;
+            });
+        }, gson::toJson);
+
+        // Checkpoints the session's controller to a named snapshot that any session can restore
+        Spark.post("/api/snapshot/save/", "application/json", (request, response) -> {
+            return getSession(request).read(bc -> {
+                try {
+                    bc.saveSnapshot(snapshotPath(request.queryParams("name")));
+                    return "";
+                } catch (IOException | IllegalArgumentException ex) {
+                    return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+                }
+            });
+        }, gson::toJson);
+
+        Spark.post("/api/snapshot/restore/", "application/json", (request, response) -> {
+            return getSession(request).write(bc -> {
+                try {
+                    bc.restoreSnapshot(snapshotPath(request.queryParams("name")));
+                    return "";
+                } catch (IOException | IllegalArgumentException ex) {
+                    return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+                }
+            });
         }, gson::toJson);
 
         Spark.post("/api/createSlope/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSession(request).write(bc -> {
                 bc.createSlope(Integer.parseInt(request.queryParams("startAngle")),
                         Integer.parseInt(request.queryParams("endAngle")),
                         Integer.parseInt(request.queryParams("gradient")));
                 return "";
-            }
+            });
         }, gson::toJson);
 
-        Spark.post("/api/simulate/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+        Spark.post("/api/simulate/", (request, response) -> {
+            return getSession(request).write(bc -> {
                 int n;
                 try {
                     n = Integer.parseInt(request.queryParamOrDefault("n", "1"));
@@ -167,19 +488,40 @@ public class App {
                 if (n < 1)
                     n = 1;
 
-                List<Map<String, EntityInfoResponse>> results = new ArrayList<>();
-                for (int i = 0; i < n; i++) {
-                    bc.simulate();
+                int steps = n;
 
-                    Map<String, EntityInfoResponse> result = new HashMap<>();
-                    bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    results.add(result);
+                if (acceptsBinary(request)) {
+                    return streamBinary(response, writer -> writeBinarySimulation(writer, bc, steps));
                 }
 
-                return results;
+                // Delta mode sends the first step in full then only what changed in each later step
+                if (Boolean.parseBoolean(request.queryParams("delta"))) {
+                    return streamJson(response, gson, writer -> writeSimulationDeltas(writer, gson, bc, steps));
+                }
+
+                return streamJson(response, gson, writer -> {
+                    writer.beginArray();
+                    for (int i = 0; i < steps; i++) {
+                        bc.simulate();
+                        writeAllEntityInfo(writer, gson, bc);
+                    }
+                    writer.endArray();
+                });
+            });
+        });
+
+        // Simulates continuously at the slowest rate the session's clients asked for, pushing each tick as an event
+        Spark.get("/api/simulate/stream/", (request, response) -> {
+            double rate;
+            try {
+                rate = Double.parseDouble(request.queryParamOrDefault("rate", "10"));
+            } catch (NumberFormatException e) {
+                rate = ContinuousSimulation.DEFAULT_TICKS_PER_SECOND;
             }
-        }, gson::toJson);
+
+            streamSimulation(request, response, gson, ContinuousSimulation.clampRate(rate));
+            return "";
+        });
 
         Scintilla.start();
     }
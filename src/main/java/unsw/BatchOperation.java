@@ -0,0 +1,82 @@
+package unsw;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.FileTransferException;
+import unsw.utils.Angle;
+
+/**
+ * One operation sent to /api/batch/, using the same names as the query
+ * parameters of the matching single endpoint, e.g.
+ * { "op": "createSatellite", "satelliteId": "A", "type": "StandardSatellite",
+ * "height": 80000, "position": 1.5 }
+ *
+ * op is one of createDevice, createSatellite, removeDevice, removeSatellite,
+ * addFile or sendFile. Positions are in radians.
+ */
+public class BatchOperation {
+    private String op;
+    private String deviceId;
+    private String satelliteId;
+    private String type;
+    private Double height;
+    private Double position;
+    private boolean isMoving;
+    private String fileName;
+    private String content;
+    private String fromId;
+    private String toId;
+
+    /**
+     * Apply this operation to the controller.
+     *
+     * @return "" if it succeeded, otherwise the exception's simple class name
+     *         and message in the same form /api/sendFile/ uses
+     */
+    public String apply(BlackoutController bc) {
+        try {
+            run(bc);
+            return "";
+        } catch (FileTransferException | IllegalArgumentException ex) {
+            return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+        }
+    }
+
+    private void run(BlackoutController bc) throws FileTransferException {
+        switch (String.valueOf(op)) {
+        case "createDevice":
+            bc.createDevice(require("deviceId", deviceId), require("type", type),
+                    Angle.fromRadians(require("position", position)), isMoving);
+            break;
+        case "createSatellite":
+            bc.createSatellite(require("satelliteId", satelliteId), require("type", type), require("height", height),
+                    Angle.fromRadians(require("position", position)));
+            break;
+        case "removeDevice":
+            bc.removeDevice(require("deviceId", deviceId));
+            break;
+        case "removeSatellite":
+            bc.removeSatellite(require("satelliteId", satelliteId));
+            break;
+        case "addFile":
+            bc.addFileToDevice(require("deviceId", deviceId), require("fileName", fileName),
+                    require("content", content));
+            break;
+        case "sendFile":
+            bc.sendFile(require("fileName", fileName), require("fromId", fromId), require("toId", toId));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown op " + op);
+        }
+    }
+
+    /**
+     * Every argument an op uses is checked before anything is applied, so a
+     * missing one fails only its own op rather than the controller.
+     */
+    private static <T> T require(String name, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,196 @@
+package unsw;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+
+/**
+ * Keeps simulating a session's controller at a fixed rate while at least one
+ * client is watching, publishing every entity's info after each tick.
+ *
+ * Only the latest frame is kept. A client that can't keep up picks up
+ * whichever frame is newest once it is ready, skipping the ones in between,
+ * so a slow client never holds up the simulation or other clients.
+ *
+ * Clients watching the same session can ask for different rates, it runs at
+ * the slowest of them so no client is sent ticks faster than it asked for.
+ */
+public class ContinuousSimulation {
+    public static final double DEFAULT_TICKS_PER_SECOND = 10;
+    public static final double MIN_TICKS_PER_SECOND = 0.1;
+    // Every tick holds the session's write lock, so requests must still get a turn in between
+    public static final double MAX_TICKS_PER_SECOND = 60;
+
+    /**
+     * Every entity's info after a given tick.
+     */
+    public static final class Frame {
+        private final long tick;
+        private final Map<String, EntityInfoResponse> entities;
+
+        private Frame(long tick, Map<String, EntityInfoResponse> entities) {
+            this.tick = tick;
+            this.entities = entities;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public Map<String, EntityInfoResponse> getEntities() {
+            return entities;
+        }
+    }
+
+    // Shared by every session, a tick only holds its own session's lock
+    private static final ScheduledExecutorService TICKER = Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "continuous-simulation");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ControllerSession session;
+    // Clients wait on a lock rather than a monitor, which would pin their virtual thread's carrier
+    private final Lock lock = new ReentrantLock();
+    private final Condition newFrame = lock.newCondition();
+    private ScheduledFuture<?> ticking;
+    private double ticksPerSecond = 0;
+    // How many clients asked for each rate
+    private final TreeMap<Double, Integer> rates = new TreeMap<>();
+    private long tick = 0;
+    private Frame latest;
+
+    public ContinuousSimulation(ControllerSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Limit a requested rate to what the simulation will run at, anything
+     * that isn't a number gets the default.
+     */
+    public static double clampRate(double ticksPerSecond) {
+        if (Double.isNaN(ticksPerSecond)) {
+            return DEFAULT_TICKS_PER_SECOND;
+        }
+        return Math.min(Math.max(ticksPerSecond, MIN_TICKS_PER_SECOND), MAX_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Start watching, asking for the given number of ticks per second. Leave
+     * with the same rate.
+     */
+    public void join(double ticksPerSecond) {
+        lock.lock();
+        try {
+            rates.merge(clampRate(ticksPerSecond), 1, Integer::sum);
+            reschedule();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop watching, the simulation stops once the last client leaves.
+     */
+    public void leave(double ticksPerSecond) {
+        lock.lock();
+        try {
+            rates.computeIfPresent(clampRate(ticksPerSecond), (rate, clients) -> clients == 1 ? null : clients - 1);
+            reschedule();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The rate the simulation is running at, 0 while nobody is watching.
+     */
+    public double getTicksPerSecond() {
+        lock.lock();
+        try {
+            return ticksPerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reschedule() {
+        double slowest = rates.isEmpty() ? 0 : rates.firstKey();
+        if (slowest == ticksPerSecond) {
+            return;
+        }
+        if (ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+        ticksPerSecond = slowest;
+        if (slowest > 0) {
+            long periodMicros = (long) (TimeUnit.SECONDS.toMicros(1) / slowest);
+            ticking = TICKER.scheduleAtFixedRate(this::tick, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Wait for a frame newer than the given tick.
+     *
+     * @return the newest frame, or null if none arrived within the timeout
+     */
+    public Frame awaitAfter(long lastTick, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (latest == null || latest.tick <= lastTick) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = newFrame.awaitNanos(remaining);
+            }
+            return latest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void tick() {
+        Map<String, EntityInfoResponse> entities;
+        try {
+            entities = session.write(bc -> {
+                bc.simulate();
+                return allEntityInfo(bc);
+            });
+        } catch (Exception e) {
+            // An exception would cancel the schedule for every client, report it and carry on
+            System.err.println("Continuous simulation tick failed: " + e.getMessage());
+            return;
+        }
+
+        lock.lock();
+        try {
+            latest = new Frame(++tick, entities);
+            newFrame.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Every entity's info by id, as sent in a frame.
+     */
+    static Map<String, EntityInfoResponse> allEntityInfo(BlackoutController bc) {
+        Map<String, EntityInfoResponse> result = new HashMap<>();
+        bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        return result;
+    }
+}
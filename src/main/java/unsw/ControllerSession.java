@@ -0,0 +1,95 @@
+package unsw;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.MutationJournal;
+
+/**
+ * One session's controller along with the lock guarding it.
+ *
+ * Requests that only read from the controller can run at the same time as
+ * each other, anything that changes it (creating, removing, sending or
+ * simulating) waits for every other request on the session to finish. A read
+ * therefore always sees the controller as a whole between two changes.
+ */
+public class ControllerSession {
+    /**
+     * Work done with the controller while the lock is held.
+     */
+    public interface Action<R> {
+        R run(BlackoutController controller) throws Exception;
+    }
+
+    private final BlackoutController controller = new BlackoutController();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MutationJournal journal;
+    private ContinuousSimulation continuousSimulation;
+
+    public ControllerSession() {
+        this(null);
+    }
+
+    /**
+     * Creates a session recording every change to its controller in the
+     * journal, if there is one.
+     */
+    public ControllerSession(MutationJournal journal) {
+        this.journal = journal;
+        controller.setJournal(journal);
+    }
+
+    /**
+     * The continuous simulation of this session, created the first time a
+     * client asks for it.
+     */
+    public synchronized ContinuousSimulation getContinuousSimulation() {
+        if (continuousSimulation == null) {
+            continuousSimulation = new ContinuousSimulation(this);
+        }
+        return continuousSimulation;
+    }
+
+    /**
+     * Run an action that only reads from the controller.
+     */
+    public <R> R read(Action<R> action) throws Exception {
+        return runLocked(lock.readLock(), action);
+    }
+
+    /**
+     * Run an action that changes the controller, with no other request
+     * on this session running at the same time.
+     */
+    public <R> R write(Action<R> action) throws Exception {
+        return runLocked(lock.writeLock(), action);
+    }
+
+    /**
+     * Commit and close the session's journal once the session is finished with.
+     */
+    public void close() throws IOException {
+        if (journal != null) {
+            // Waits for any change still being made, later changes aren't recorded
+            lock.writeLock().lock();
+            try {
+                controller.setJournal(null);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            journal.close();
+        }
+    }
+
+    private <R> R runLocked(Lock held, Action<R> action) throws Exception {
+        held.lock();
+        try {
+            return action.run(controller);
+        } finally {
+            held.unlock();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package unsw;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds one value per session, safe to use from many request threads at once.
+ *
+ * Sessions that haven't been used for the idle time are removed by
+ * {@link #evictIdle()}, and once there are more than the max size the least
+ * recently used sessions are removed straight away.
+ */
+public class SessionStore<T> {
+    /**
+     * Why a session was removed from the store.
+     */
+    public enum Cause {
+        IDLE, SIZE
+    }
+
+    /**
+     * Called after a session has been removed from the store.
+     */
+    public interface EvictionListener<T> {
+        void onEviction(String id, T value, Cause cause);
+    }
+
+    private static final class Session<T> {
+        private final T value;
+        private volatile long lastAccess;
+
+        private Session(T value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final Map<String, Session<T>> sessions = new ConcurrentHashMap<>();
+    private final long idleNanos;
+    private final int maxSize;
+    private final EvictionListener<T> listener;
+    private final LongSupplier clock;
+
+    public SessionStore(long idleTime, TimeUnit unit, int maxSize, EvictionListener<T> listener) {
+        this(idleTime, unit, maxSize, listener, System::nanoTime);
+    }
+
+    /**
+     * Creates a store reading the time in nanoseconds from the given clock.
+     */
+    public SessionStore(long idleTime, TimeUnit unit, int maxSize, EvictionListener<T> listener,
+            LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.idleNanos = unit.toNanos(idleTime);
+        this.maxSize = maxSize;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the value for a session, creating it with the factory the first time
+     * the session is seen. Only the one session is locked while creating it.
+     */
+    public T get(String id, Supplier<T> factory) {
+        long now = clock.getAsLong();
+        boolean[] created = { false };
+        Session<T> session = sessions.computeIfAbsent(id, key -> {
+            created[0] = true;
+            return new Session<>(factory.get(), now);
+        });
+        session.lastAccess = now;
+
+        if (created[0] && sessions.size() > maxSize) {
+            evictOldest(id);
+        }
+        return session.value;
+    }
+
+    /**
+     * Mark a session as used without creating it, for requests that keep
+     * using a session long after they looked it up.
+     */
+    public void touch(String id) {
+        Session<T> session = sessions.get(id);
+        if (session != null) {
+            session.lastAccess = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Remove every session that hasn't been used for the idle time.
+     */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, Session<T>> entry : sessions.entrySet()) {
+            Session<T> session = entry.getValue();
+            if (now - session.lastAccess >= idleNanos) {
+                evict(entry.getKey(), session, Cause.IDLE);
+            }
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Remove least recently used sessions until the store is back to its max
+     * size, never removing the session that was just added.
+     */
+    private void evictOldest(String keep) {
+        while (sessions.size() > maxSize) {
+            String oldestId = null;
+            Session<T> oldest = null;
+            for (Map.Entry<String, Session<T>> entry : sessions.entrySet()) {
+                Session<T> session = entry.getValue();
+                if (!entry.getKey().equals(keep) && (oldest == null || session.lastAccess < oldest.lastAccess)) {
+                    oldestId = entry.getKey();
+                    oldest = session;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            evict(oldestId, oldest, Cause.SIZE);
+        }
+    }
+
+    private void evict(String id, Session<T> session, Cause cause) {
+        // Another thread may have already removed or replaced it
+        if (sessions.remove(id, session) && listener != null) {
+            listener.onEviction(id, session.value, cause);
+        }
+    }
+}
@@ -1,42 +1,76 @@
 package unsw.blackout;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import unsw.blackout.FileTransferException.VirtualFileAlreadyExistsException;
 import unsw.blackout.FileTransferException.VirtualFileNoBandwidthException;
 import unsw.blackout.FileTransferException.VirtualFileNotFoundException;
+import unsw.response.models.ContactWindowResponse;
 import unsw.response.models.EntityInfoResponse;
 import unsw.utils.Angle;
-import unsw.utils.MathsHelper;
 
 /**
  * The controller for the Blackout system.
  *
+ * Calls that only read (getInfo, listDeviceIds, listSatelliteIds and
+ * communicableEntitiesInRange) can be made from several threads at once,
+ * but never at the same time as a call that changes the controller.
+ *
  * WARNING: Do not move this file or modify any of the existing method
  * signatures
  */
 public class BlackoutController {
-    private List<Device> deviceList = new ArrayList<Device>();
-    private List<Satellite> satelliteList = new ArrayList<Satellite>();
+    private EntityRegistry registry = new EntityRegistry();
+    private SpatialIndex<Satellite> satelliteIndex = new SpatialIndex<Satellite>();
+    private SpatialIndex<Device> deviceIndex = new SpatialIndex<Device>();
+    private final VisibilityGraph visibility = new VisibilityGraph(this::candidatesNear, () -> registry);
+    private final RouteTable routes = new RouteTable(this::getEntity, this::directlyInRange);
+    private TransferScheduler transfers = new TransferScheduler();
+    // Only set while packed simulation is switched on
+    private PackedConstellation packedState = null;
+    private boolean parallelSimulation = false;
+    private boolean fastForward = false;
+    // Guards the state read only calls refresh lazily (packed orbits, spatial index)
+    private final Object lazyStateLock = new Object();
+    private MutationJournal journal = null;
 
     /*
      * Method to create a device
      * @params deviceId, type, position
      */
     public void createDevice(String deviceId, String type, Angle position) {
+        Device device = newDevice(deviceId, type, position);
+        if (device != null) {
+            registry.addDevice(device);
+        }
+        visibility.reset();
+        invalidateSpatialIndex();
+        if (journal != null) {
+            journal.createDevice(deviceId, type, position);
+        }
+    }
+
+    /*
+     * Method to make a device of the given type
+     * @params deviceId, type, position
+     * @returns device, null if the type is unknown
+     */
+    static Device newDevice(String deviceId, String type, Angle position) {
         switch (type) {
         case "HandheldDevice":
-            deviceList.add(new HandheldDevice(deviceId, type, position));
-            break;
+            return new HandheldDevice(deviceId, type, position);
         case "LaptopDevice":
-            deviceList.add(new LaptopDevice(deviceId, type, position));
-            break;
+            return new LaptopDevice(deviceId, type, position);
         case "DesktopDevice":
-            deviceList.add(new DesktopDevice(deviceId, type, position));
-            break;
+            return new DesktopDevice(deviceId, type, position);
         default:
-            break;
+            return null;
         }
     }
 
@@ -45,11 +79,11 @@ public class BlackoutController {
      * @params deviceId
      */
     public void removeDevice(String deviceId) {
-        for (Device device : deviceList) {
-            if (device.getId().equals(deviceId)) {
-                deviceList.remove(device);
-                return;
-            }
+        registry.removeDevice(deviceId);
+        visibility.reset();
+        invalidateSpatialIndex();
+        if (journal != null) {
+            journal.removeDevice(deviceId);
         }
     }
 
@@ -59,18 +93,33 @@ public class BlackoutController {
      */
     public void createSatellite(String satelliteId, String type, double height, Angle position) {
         // TODO: Task 1c)
+        Satellite satellite = newSatellite(satelliteId, type, height, position);
+        if (satellite != null) {
+            registry.addSatellite(satellite);
+        }
+        invalidatePackedState();
+        visibility.reset();
+        invalidateSpatialIndex();
+        if (journal != null) {
+            journal.createSatellite(satelliteId, type, height, position);
+        }
+    }
+
+    /*
+     * Method to make a satellite of the given type
+     * @params satelliteId, type, height, position
+     * @returns satellite, null if the type is unknown
+     */
+    static Satellite newSatellite(String satelliteId, String type, double height, Angle position) {
         switch (type) {
         case "StandardSatellite":
-            satelliteList.add(new StandardSatellite(satelliteId, type, height, position));
-            break;
+            return new StandardSatellite(satelliteId, type, height, position);
         case "RelaySatellite":
-            satelliteList.add(new RelaySatellite(satelliteId, type, height, position));
-            break;
+            return new RelaySatellite(satelliteId, type, height, position);
         case "TeleportingSatellite":
-            satelliteList.add(new TeleportingSatellite(satelliteId, type, height, position));
-            break;
+            return new TeleportingSatellite(satelliteId, type, height, position);
         default:
-            break;
+            return null;
         }
     }
 
@@ -79,11 +128,12 @@ public class BlackoutController {
      * @params satelliteId, type, height, position
      */
     public void removeSatellite(String satelliteId) {
-        for (Satellite satellite : satelliteList) {
-            if (satellite.getId().equals(satelliteId)) {
-                satelliteList.remove(satellite);
-                return;
-            }
+        registry.removeSatellite(satelliteId);
+        invalidatePackedState();
+        visibility.reset();
+        invalidateSpatialIndex();
+        if (journal != null) {
+            journal.removeSatellite(satelliteId);
         }
     }
 
@@ -92,13 +142,7 @@ public class BlackoutController {
      * @returns deviceIdList
      */
     public List<String> listDeviceIds() {
-        List<String> deviceIdList = new ArrayList<String>();
-
-        for (Device device : deviceList) {
-            deviceIdList.add(device.getId());
-        }
-
-        return deviceIdList;
+        return registry.listDeviceIds();
     }
 
     /*
@@ -106,13 +150,7 @@ public class BlackoutController {
      * @returns satelliteIdList
      */
     public List<String> listSatelliteIds() {
-        List<String> satelliteIdList = new ArrayList<String>();
-
-        for (Satellite satellite : satelliteList) {
-            satelliteIdList.add(satellite.getId());
-        }
-
-        return satelliteIdList;
+        return registry.listSatelliteIds();
     }
 
     /*
@@ -120,13 +158,14 @@ public class BlackoutController {
      * @params deviceId, filename, content
      */
     public void addFileToDevice(String deviceId, String filename, String content) {
-        for (Device device : deviceList) {
-            if (device.getId().equals(deviceId)) {
-                File newFile = new File(filename, content);
-                newFile.setContentComplete();
-                device.addFile(newFile);
-                return;
-            }
+        Device device = registry.getDevice(deviceId);
+        if (device != null) {
+            File newFile = new File(filename, content);
+            newFile.setContentComplete();
+            device.addFile(newFile);
+        }
+        if (journal != null) {
+            journal.addFile(deviceId, filename, content);
         }
     }
 
@@ -139,14 +178,17 @@ public class BlackoutController {
     public EntityInfoResponse getInfo(String id) {
         Device device = getDevice(id);
         if (device != null) {
-            return new EntityInfoResponse(id, device.getPosition(), MathsHelper.RADIUS_OF_JUPITER, device.getType(),
-                    device.fileMap());
+            return device.getInfo(transfers.getCurrentMinute());
         }
 
         Satellite satellite = getSatellite(id);
         if (satellite != null) {
-            return new EntityInfoResponse(id, satellite.getPosition(), satellite.getHeight(), satellite.getType(),
-                    satellite.fileMap());
+            if (packedState != null) {
+                synchronized (lazyStateLock) {
+                    packedState.sync(satellite);
+                }
+            }
+            return satellite.getInfo(transfers.getCurrentMinute());
         }
 
         return null;
@@ -157,45 +199,151 @@ public class BlackoutController {
      * updating of entity file transfers
      */
     public void simulate() {
-        for (Satellite satellite : satelliteList) {
-            satellite.changePosition();
-            satellite.updateEntityFiles();
+        step();
+        if (journal != null) {
+            journal.simulate(1);
         }
-        for (Device device : deviceList) {
-            device.updateEntityFiles();
+    }
+
+    /*
+     * Method to move every satellite and progress transfers by one minute
+     */
+    private void step() {
+        // Movement phase, every satellite has moved before any transfers progress
+        if (packedState != null) {
+            if (!packedState.isLoaded()) {
+                packedState.load(registry.getSatellites());
+            }
+            if (parallelSimulation) {
+                packedState.advance(ForkJoinPool.commonPool());
+            } else {
+                packedState.advance();
+            }
+        } else {
+            forEachEntity(registry.getSatellites(), Satellite::changePosition);
         }
+
+        // Transfer phase, only transfers completing this minute are touched
+        transfers.advance();
+        invalidateSpatialIndex();
     }
 
     /**
-     * Simulate for the specified number of minutes. You shouldn't need to modify
-     * this function.
+     * Simulate for the specified number of minutes.
+     *
+     * With fast forward on, stretches where no satellite teleports or wraps
+     * its angle and no transfer completes are skipped in one jump, stepping
+     * minute by minute only around those events.
      */
     public void simulate(int numberOfMinutes) {
-        for (int i = 0; i < numberOfMinutes; i++) {
-            simulate();
+        if (!fastForward) {
+            for (int i = 0; i < numberOfMinutes; i++) {
+                step();
+            }
+        } else {
+            fastForward(numberOfMinutes);
+        }
+        if (journal != null && numberOfMinutes > 0) {
+            journal.simulate(numberOfMinutes);
+        }
+    }
+
+    /*
+     * Method to simulate a number of minutes, jumping over the minutes
+     * between events
+     * @params numberOfMinutes
+     */
+    private void fastForward(int numberOfMinutes) {
+        int remaining = numberOfMinutes;
+        while (remaining > 0) {
+            int steadyMinutes = Math.min(remaining, minutesUntilNextEvent());
+            if (steadyMinutes > 0) {
+                fastForwardAll(steadyMinutes);
+                remaining -= steadyMinutes;
+            } else {
+                step();
+                remaining--;
+            }
         }
     }
 
     /*
      * Method to get a list of entities within range of
-     * an entity given it's id
+     * an entity given it's id, directly or through relay satellites
      * @params id
      * @returns entitiesInRange
      */
     public List<String> communicableEntitiesInRange(String id) {
         List<String> entitiesInRange = new ArrayList<String>();
+        Entity entity = getEntity(id);
+        if (entity == null) {
+            return entitiesInRange;
+        }
 
-        Satellite satellite = getSatellite(id);
-        if (satellite != null) {
-            entitiesInRange.addAll(satellite.getInRangeForSatellites(satelliteList, deviceList));
+        synchronized (lazyStateLock) {
+            if (packedState != null) {
+                packedState.syncAll();
+            }
+            entitiesInRange.addAll(routes.reachableFrom(entity));
         }
+        return entitiesInRange;
+    }
 
-        Device device = getDevice(id);
-        if (device != null) {
-            entitiesInRange.addAll(device.getInRangeForDevices(satelliteList));
+    /*
+     * Method to get a list of entities directly within range of an entity,
+     * from the visibility graph kept up to date across ticks
+     * @params entity
+     * @returns entitiesInRange
+     */
+    private List<String> directlyInRange(Entity entity) {
+        return visibility.neighbours(entity, transfers.getCurrentMinute());
+    }
+
+    /*
+     * Method to get every entity that could be within a range of an entity and
+     * in contact with it, satellites first then devices
+     * @params entity, range
+     * @returns candidates
+     */
+    private List<Entity> candidatesNear(Entity entity, double range) {
+        refreshSpatialIndex();
+        double radians = entity.getPosition().toRadians();
+        List<Entity> candidates = new ArrayList<Entity>(
+                satelliteIndex.candidatesInRange(entity.getHeight(), radians, range));
+        // Devices never talk to each other
+        if (entity instanceof Satellite) {
+            candidates.addAll(deviceIndex.candidatesInRange(entity.getHeight(), radians, range));
         }
+        return candidates;
+    }
 
-        return entitiesInRange;
+    /*
+     * Method to predict when one entity will be in direct contact with another
+     * and for how long, without simulating anything
+     * @params fromId, toId, horizonMinutes
+     * @returns contact windows in simulation minutes over the next horizonMinutes,
+     *          empty if either entity doesn't exist
+     */
+    public List<ContactWindowResponse> predictContactWindows(String fromId, String toId, int horizonMinutes) {
+        Entity from = getEntity(fromId);
+        Entity to = getEntity(toId);
+        if (from == null || to == null || horizonMinutes < 0) {
+            return new ArrayList<ContactWindowResponse>();
+        }
+
+        if (packedState != null) {
+            synchronized (lazyStateLock) {
+                syncPacked(from);
+                syncPacked(to);
+            }
+        }
+        return ContactPredictor.predict(from, to, transfers.getCurrentMinute(), horizonMinutes);
+    }
+
+    private void syncPacked(Entity entity) {
+        if (entity instanceof Satellite) {
+            packedState.sync((Satellite) entity);
+        }
     }
 
     /*
@@ -204,6 +352,17 @@ public class BlackoutController {
      * @params fileName, fromId, toId
      */
     public void sendFile(String fileName, String fromId, String toId) throws FileTransferException {
+        if (startTransfer(fileName, fromId, toId) && journal != null) {
+            journal.sendFile(fileName, fromId, toId);
+        }
+    }
+
+    /*
+     * Method to start sending a file, if the receiver is in range
+     * @params fileName, fromId, toId
+     * @returns true if the transfer was started
+     */
+    private boolean startTransfer(String fileName, String fromId, String toId) throws FileTransferException {
         Device deviceSending = getDevice(fromId);
         Satellite satelliteSending = getSatellite(fromId);
 
@@ -212,7 +371,7 @@ public class BlackoutController {
             List<String> communicableEntities = communicableEntitiesInRange(fromId);
             // Check in range, file exists/partial transfer
             if (!deviceSending.checkIfInRange(communicableEntities, toId)) {
-                return;
+                return false;
             }
             if (deviceSending.getFile(fileName) == null || !deviceSending.getFile(fileName).isTransferStatus()) {
                 throw new VirtualFileNotFoundException(fileName);
@@ -222,7 +381,7 @@ public class BlackoutController {
             if (satelliteReceiving != null) {
                 sendToSatellite(fileName, satelliteReceiving, deviceSending);
             }
-            return;
+            return true;
         }
 
         // Sending from a satellite
@@ -230,7 +389,7 @@ public class BlackoutController {
             List<String> communicableEntities = communicableEntitiesInRange(fromId);
             // Check in range, file exists/partial transfer and bandwidth availability
             if (!satelliteSending.checkIfInRange(communicableEntities, toId)) {
-                return;
+                return false;
             }
             if (satelliteSending.getFile(fileName) == null || !satelliteSending.getFile(fileName).isTransferStatus()) {
                 throw new VirtualFileNotFoundException(fileName);
@@ -249,24 +408,147 @@ public class BlackoutController {
             if (deviceReceiving != null) {
                 sendToDevice(fileName, deviceReceiving, satelliteSending);
             }
+            return true;
         }
+        return false;
+    }
+
+    /*
+     * Method to save every entity, file and transfer in progress to a
+     * snapshot file that restoreSnapshot can load back
+     * @params path
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        if (packedState != null) {
+            synchronized (lazyStateLock) {
+                packedState.syncAll();
+            }
+        }
+        ControllerSnapshot.write(path, registry, transfers);
+    }
+
+    /*
+     * Method to replace everything in this controller with a snapshot saved by
+     * saveSnapshot, the simulation settings are kept as they are
+     * @params path
+     */
+    public void restoreSnapshot(Path path) throws IOException {
+        ControllerSnapshot snapshot = ControllerSnapshot.read(path);
+        registry = snapshot.getRegistry();
+        transfers = snapshot.getTransfers();
+        if (packedState != null) {
+            packedState.invalidate();
+        }
+        visibility.reset();
+        invalidateSpatialIndex();
+        if (journal != null) {
+            journal.restoreSnapshot(path);
+        }
+    }
+
+    /*
+     * Method to record every change made to this controller from now on in a
+     * journal, MutationJournal.replay applies them again to another controller
+     * @params journal, null to stop recording
+     */
+    public void setJournal(MutationJournal journal) {
+        this.journal = journal;
+    }
+
+    /*
+     * Method to switch satellite movement between moving each Satellite object
+     * and advancing a packed array copy of every orbit, only copying positions
+     * back onto satellites when they are asked for
+     * @params enabled
+     */
+    public void setPackedSimulation(boolean enabled) {
+        if (enabled && packedState == null) {
+            packedState = new PackedConstellation();
+        } else if (!enabled && packedState != null) {
+            packedState.syncAll();
+            packedState = null;
+        }
+    }
+
+    /*
+     * Method to switch simulate() between moving satellites on the calling
+     * thread and splitting them across the common fork-join pool. Every
+     * satellite has moved before any transfers complete either way
+     * @params enabled
+     */
+    public void setParallelSimulation(boolean enabled) {
+        parallelSimulation = enabled;
+    }
+
+    /*
+     * Method to switch simulate(numberOfMinutes) between always stepping
+     * minute by minute and jumping over minutes where nothing changes
+     * @params enabled
+     */
+    public void setFastForward(boolean enabled) {
+        fastForward = enabled;
     }
 
     // ------------------------------- HELPER METHODS --------------------------------------
 
+    /*
+     * Method to get how many minutes can be jumped before any satellite
+     * teleports or wraps its angle, or any file transfer completes
+     * @returns minutes
+     */
+    private int minutesUntilNextEvent() {
+        if (packedState != null) {
+            packedState.syncAll();
+        }
+
+        int minutes = Integer.MAX_VALUE;
+        for (Satellite satellite : registry.getSatellites()) {
+            minutes = Math.min(minutes, satellite.minutesOfSteadyMovement());
+        }
+        // The minute a transfer completes has to be stepped
+        return Math.min(minutes, transfers.minutesUntilNextCompletion() - 1);
+    }
+
+    /*
+     * Method to move every satellite and file transfer forward a number of
+     * minutes in one go, only valid for at most minutesUntilNextEvent() minutes
+     * @params minutes
+     */
+    private void fastForwardAll(int minutes) {
+        for (Satellite satellite : registry.getSatellites()) {
+            satellite.fastForward(minutes);
+        }
+        transfers.skip(minutes);
+
+        // Satellites were moved directly so the packed orbits need repacking
+        if (packedState != null) {
+            packedState.invalidate();
+        }
+        invalidateSpatialIndex();
+    }
+
+    /*
+     * Method to run an action on every entity, in parallel if parallel
+     * simulation is on, returning once it has run on all of them
+     * @params entities, action
+     */
+    private <T extends Entity> void forEachEntity(Collection<T> entities, Consumer<T> action) {
+        if (!parallelSimulation) {
+            entities.forEach(action);
+            return;
+        }
+
+        List<T> entityList = new ArrayList<T>(entities);
+        ForkJoinPool.commonPool().submit(() -> entityList.parallelStream().forEach(action)).join();
+    }
+
     /*
      * Method to get a device given it's id
      * @params deviceId
      * @returns device
      */
     public Device getDevice(String deviceId) {
-        for (Device device : deviceList) {
-            if (device.getId().equals(deviceId)) {
-                return device;
-            }
-        }
-
-        return null;
+        return registry.getDevice(deviceId);
     }
 
     /*
@@ -275,13 +557,60 @@ public class BlackoutController {
      * @returns satellite
      */
     public Satellite getSatellite(String satelliteId) {
-        for (Satellite satellite : satelliteList) {
-            if (satellite.getId().equals(satelliteId)) {
-                return satellite;
-            }
+        return registry.getSatellite(satelliteId);
+    }
+
+    /*
+     * Method to get a satellite or device given it's id
+     * @params id
+     * @returns entity, null if there is none
+     */
+    private Entity getEntity(String id) {
+        Satellite satellite = getSatellite(id);
+        if (satellite != null) {
+            return satellite;
         }
+        return getDevice(id);
+    }
 
-        return null;
+    /*
+     * Copies any moved orbits back before satellites are added or removed
+     * so the packed state can be rebuilt from up to date satellites
+     */
+    private void invalidatePackedState() {
+        if (packedState != null) {
+            packedState.syncAll();
+            packedState.invalidate();
+        }
+    }
+
+    private void invalidateSpatialIndex() {
+        satelliteIndex.invalidate();
+        deviceIndex.invalidate();
+        routes.invalidate();
+    }
+
+    /*
+     * Rebuilds the spatial index if anything has moved or changed since it was
+     * last built, shells are sized from the largest range of any entity
+     */
+    private void refreshSpatialIndex() {
+        synchronized (lazyStateLock) {
+            if (!satelliteIndex.isDirty() && !deviceIndex.isDirty()) {
+                return;
+            }
+
+            double maxRange = 0;
+            for (Satellite satellite : registry.getSatellites()) {
+                maxRange = Math.max(maxRange, satellite.getRange());
+            }
+            for (Device device : registry.getDevices()) {
+                maxRange = Math.max(maxRange, device.getRange());
+            }
+
+            satelliteIndex.rebuild(registry.getSatellites(), maxRange);
+            deviceIndex.rebuild(registry.getDevices(), maxRange);
+        }
     }
 
     /*
@@ -312,9 +641,11 @@ public class BlackoutController {
         // Set mins required to complete transfer
         int minsRequired = file.calculateMinsRequired(bandwidth);
         file.setMinsRequired(minsRequired);
+        file.startTransfer(bandwidth, transfers.getCurrentMinute());
 
         // Add file and update storage and downloading
         satellite.addFile(file);
+        transfers.schedule(file, satellite);
         satellite.setCurrStorageUnused(satellite.getCurrStorageUnused() - file.getFileSize());
         satellite.setFilesDownloading(satellite.getFilesDownloading() + 1);
     }
@@ -324,7 +655,7 @@ public class BlackoutController {
      * @params fileName, device, entitySending
      */
     private void sendToDevice(String fileName, Device device, Entity entitySending) throws FileTransferException {
-        // File already exists in device's fileList
+        // File already exists in device's files
         if (device.getFile(fileName) != null) {
             throw new VirtualFileAlreadyExistsException(fileName);
         }
@@ -337,9 +668,11 @@ public class BlackoutController {
         Satellite satelliteSending = getSatellite(entitySending.getId());
         int minsRequired = file.calculateMinsRequired(satelliteSending.getSendBandwidth());
         file.setMinsRequired(minsRequired);
+        file.startTransfer(satelliteSending.getSendBandwidth(), transfers.getCurrentMinute());
 
         // Add file and update uploading
         device.addFile(file);
+        transfers.schedule(file, device);
         satelliteSending.setFilesUploading(satelliteSending.getFilesUploading() + 1);
     }
 
@@ -348,7 +681,7 @@ public class BlackoutController {
      * @params satellite, fileName
      */
     private void catchSatelliteTransferExceptions(Satellite satellite, String fileName) throws FileTransferException {
-        // File already exists in satellite's fileList
+        // File already exists in satellite's files
         if (satellite.getFile(fileName) != null) {
             throw new VirtualFileAlreadyExistsException(fileName);
         }
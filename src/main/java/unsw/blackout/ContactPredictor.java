@@ -0,0 +1,111 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import unsw.response.models.ContactWindowResponse;
+
+/**
+ * Predicts when one entity will be in direct contact with another, without
+ * simulating or changing the controller.
+ *
+ * Both entities are copied and the copies moved forward with the satellites'
+ * own movement. Rather than checking every minute, each step jumps straight
+ * over the minutes the pair can't cross its range or the horizon in (the
+ * same bound the visibility graph uses), moving with fastForward while no
+ * satellite teleports or wraps its angle and a minute at a time around those.
+ * Every minute a step lands on is checked exactly, so the edges of each
+ * window are the minutes simulate() would give.
+ */
+final class ContactPredictor {
+    private ContactPredictor() {
+    }
+
+    /*
+     * Method to find every window the source can reach the target directly
+     * in over the next horizonMinutes minutes
+     * @params source, target, currentMinute, horizonMinutes
+     * @returns windows in the order they open
+     */
+    public static List<ContactWindowResponse> predict(Entity source, Entity target, long currentMinute,
+            int horizonMinutes) {
+        Entity from = projectionOf(source);
+        Entity to = projectionOf(target);
+        double closingSpeed = VisibilityGraph.closingSpeed(from, to);
+        double angularSpeed = VisibilityGraph.angularSpeed(from, to);
+        double horizon = VisibilityGraph.horizon(from, to);
+
+        List<ContactWindowResponse> windows = new ArrayList<ContactWindowResponse>();
+        boolean inContact = from.canReachDirectly(to);
+        long opened = 0;
+        long minute = 0;
+        while (minute < horizonMinutes) {
+            // The answer holds for the minutes in between, only where a step lands needs checking
+            double unchanged = VisibilityGraph.minutesUnchanged(from, to, closingSpeed, angularSpeed, horizon);
+            long step = (long) Math.min(unchanged + 1, horizonMinutes - minute);
+            step = Math.min(step, Math.min(minutesOfSteadyMovement(from), minutesOfSteadyMovement(to)));
+            if (step <= 1) {
+                step = 1;
+                move(from);
+                move(to);
+            } else {
+                fastForward(from, (int) step);
+                fastForward(to, (int) step);
+            }
+            minute += step;
+
+            boolean nowInContact = from.canReachDirectly(to);
+            if (nowInContact && !inContact) {
+                opened = minute;
+            } else if (!nowInContact && inContact) {
+                windows.add(new ContactWindowResponse(currentMinute + opened, currentMinute + minute - 1,
+                        opened == 0, false));
+            }
+            inContact = nowInContact;
+        }
+
+        if (inContact) {
+            windows.add(new ContactWindowResponse(currentMinute + opened, currentMinute + horizonMinutes,
+                    opened == 0, true));
+        }
+        return windows;
+    }
+
+    /*
+     * Copy of an entity that can be moved without touching the original,
+     * devices never move so they are used as they are
+     */
+    private static Entity projectionOf(Entity entity) {
+        if (!(entity instanceof Satellite)) {
+            return entity;
+        }
+
+        Satellite satellite = (Satellite) entity;
+        Satellite copy = BlackoutController.newSatellite(satellite.getId(), satellite.getType(),
+                satellite.getHeight(), satellite.getPosition());
+        copy.setLinearVelocity(satellite.getLinearVelocity());
+        if (satellite instanceof TeleportingSatellite) {
+            ((TeleportingSatellite) copy).setAnticlockwise(((TeleportingSatellite) satellite).isAnticlockwise());
+        }
+        return copy;
+    }
+
+    private static int minutesOfSteadyMovement(Entity entity) {
+        if (entity instanceof Satellite) {
+            return ((Satellite) entity).minutesOfSteadyMovement();
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static void move(Entity entity) {
+        if (entity instanceof Satellite) {
+            ((Satellite) entity).changePosition();
+        }
+    }
+
+    private static void fastForward(Entity entity, int minutes) {
+        if (entity instanceof Satellite) {
+            ((Satellite) entity).fastForward(minutes);
+        }
+    }
+}
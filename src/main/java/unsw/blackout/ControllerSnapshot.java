@@ -0,0 +1,352 @@
+package unsw.blackout;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.utils.Angle;
+
+/**
+ * Saves and loads everything a BlackoutController needs to carry on where it
+ * left off: every entity and its position, satellite velocities, directions
+ * and counters, every file with its transfer progress and the order transfers
+ * in progress will complete in.
+ *
+ * Snapshots are written and read through a memory mapped file so even large
+ * constellations take milliseconds. Everything is big endian:
+ *
+ * <pre>
+ * int    magic, int version, long currentMinute
+ * int    deviceCount, int satelliteCount
+ * each entity, devices first:
+ *   string type, string id, double radians
+ *   satellites only: double height, double linearVelocity, int filesUploading,
+ *                    int filesDownloading, int storageUnused, byte anticlockwise
+ *   int    fileCount
+ *   each file: string name, string content, byte flags, int minsRequired,
+ *              int bandwidth, long startMinute
+ * int    scheduledCount
+ * each scheduled transfer, in completion order: int entity index, string file name
+ * </pre>
+ *
+ * Strings are an int byte length followed by UTF-8.
+ */
+final class ControllerSnapshot {
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+
+    private static final byte TRANSFER_COMPLETE = 1;
+    private static final byte CONTENT_COMPLETE = 2;
+
+    private final EntityRegistry registry;
+    private final TransferScheduler transfers;
+
+    private ControllerSnapshot(EntityRegistry registry, TransferScheduler transfers) {
+        this.registry = registry;
+        this.transfers = transfers;
+    }
+
+    public EntityRegistry getRegistry() {
+        return registry;
+    }
+
+    public TransferScheduler getTransfers() {
+        return transfers;
+    }
+
+    /*
+     * Where values are written, so working out the size of a snapshot and
+     * writing it go through exactly the same steps
+     */
+    private interface Sink {
+        void putByte(byte value);
+
+        void putInt(int value);
+
+        void putLong(long value);
+
+        void putDouble(double value);
+
+        void putString(String value);
+    }
+
+    private static final class SizeSink implements Sink {
+        private long size = 0;
+
+        @Override
+        public void putByte(byte value) {
+            size += Byte.BYTES;
+        }
+
+        @Override
+        public void putInt(int value) {
+            size += Integer.BYTES;
+        }
+
+        @Override
+        public void putLong(long value) {
+            size += Long.BYTES;
+        }
+
+        @Override
+        public void putDouble(double value) {
+            size += Double.BYTES;
+        }
+
+        @Override
+        public void putString(String value) {
+            size += Integer.BYTES + utf8Length(value);
+        }
+    }
+
+    private static final class BufferSink implements Sink {
+        private final MappedByteBuffer buffer;
+
+        private BufferSink(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void putByte(byte value) {
+            buffer.put(value);
+        }
+
+        @Override
+        public void putInt(int value) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public void putLong(long value) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            buffer.putDouble(value);
+        }
+
+        @Override
+        public void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    /*
+     * Method to write a snapshot, replacing the file if it exists
+     * @params path, registry, transfers
+     */
+    public static void write(Path path, EntityRegistry registry, TransferScheduler transfers) throws IOException {
+        SizeSink sizer = new SizeSink();
+        writeTo(sizer, registry, transfers);
+        if (sizer.size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + sizer.size + " bytes is too large to map");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizer.size);
+            writeTo(new BufferSink(buffer), registry, transfers);
+            buffer.force();
+        }
+    }
+
+    private static void writeTo(Sink sink, EntityRegistry registry, TransferScheduler transfers) {
+        sink.putInt(MAGIC);
+        sink.putInt(VERSION);
+        sink.putLong(transfers.getCurrentMinute());
+        sink.putInt(registry.getDevices().size());
+        sink.putInt(registry.getSatellites().size());
+
+        Map<Entity, Integer> indexes = new IdentityHashMap<Entity, Integer>();
+        for (Device device : registry.getDevices()) {
+            indexes.put(device, indexes.size());
+            writeEntity(sink, device);
+            writeFiles(sink, device);
+        }
+        for (Satellite satellite : registry.getSatellites()) {
+            indexes.put(satellite, indexes.size());
+            writeEntity(sink, satellite);
+            sink.putDouble(satellite.getHeight());
+            sink.putDouble(satellite.getLinearVelocity());
+            sink.putInt(satellite.getFilesUploading());
+            sink.putInt(satellite.getFilesDownloading());
+            sink.putInt(satellite.getCurrStorageUnused());
+            boolean anticlockwise = satellite instanceof TeleportingSatellite
+                    && ((TeleportingSatellite) satellite).isAnticlockwise();
+            sink.putByte(anticlockwise ? (byte) 1 : (byte) 0);
+            writeFiles(sink, satellite);
+        }
+
+        List<File> scheduledFiles = new ArrayList<File>();
+        List<Entity> receivers = new ArrayList<Entity>();
+        transfers.forEachScheduled((file, receiver) -> {
+            // Transfers to entities that have since been removed can't be seen any more
+            if (indexes.containsKey(receiver)) {
+                scheduledFiles.add(file);
+                receivers.add(receiver);
+            }
+        });
+        sink.putInt(scheduledFiles.size());
+        for (int i = 0; i < scheduledFiles.size(); i++) {
+            sink.putInt(indexes.get(receivers.get(i)));
+            sink.putString(scheduledFiles.get(i).getFileName());
+        }
+    }
+
+    private static void writeEntity(Sink sink, Entity entity) {
+        sink.putString(entity.getType());
+        sink.putString(entity.getId());
+        sink.putDouble(entity.getPosition().toRadians());
+    }
+
+    private static void writeFiles(Sink sink, Entity entity) {
+        List<File> files = entity.getFileList();
+        sink.putInt(files.size());
+        for (File file : files) {
+            sink.putString(file.getFileName());
+            sink.putString(file.getFileContent());
+            byte flags = 0;
+            if (file.isTransferStatus()) {
+                flags |= TRANSFER_COMPLETE;
+            }
+            if (!file.getContentComplete().isEmpty()) {
+                flags |= CONTENT_COMPLETE;
+            }
+            sink.putByte(flags);
+            sink.putInt(file.getMinsRequired());
+            sink.putInt(file.getBandwidth());
+            sink.putLong(file.getStartMinute());
+        }
+    }
+
+    /*
+     * Method to read a snapshot saved by write
+     * @params path
+     * @returns the restored entities and transfers
+     */
+    public static ControllerSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return readFrom(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot " + path + " is truncated", e);
+        }
+    }
+
+    private static ControllerSnapshot readFrom(MappedByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a Blackout snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+
+        TransferScheduler transfers = new TransferScheduler(buffer.getLong());
+        EntityRegistry registry = new EntityRegistry();
+        int deviceCount = buffer.getInt();
+        int satelliteCount = buffer.getInt();
+        List<Entity> entities = new ArrayList<Entity>(deviceCount + satelliteCount);
+
+        for (int i = 0; i < deviceCount; i++) {
+            String type = getString(buffer);
+            String id = getString(buffer);
+            Device device = BlackoutController.newDevice(id, type, Angle.fromRadians(buffer.getDouble()));
+            if (device == null) {
+                throw new IOException("Unknown device type " + type);
+            }
+            readFiles(buffer, device);
+            registry.addDevice(device);
+            entities.add(device);
+        }
+
+        for (int i = 0; i < satelliteCount; i++) {
+            String type = getString(buffer);
+            String id = getString(buffer);
+            Angle position = Angle.fromRadians(buffer.getDouble());
+            Satellite satellite = BlackoutController.newSatellite(id, type, buffer.getDouble(), position);
+            if (satellite == null) {
+                throw new IOException("Unknown satellite type " + type);
+            }
+            satellite.setLinearVelocity(buffer.getDouble());
+            satellite.setFilesUploading(buffer.getInt());
+            satellite.setFilesDownloading(buffer.getInt());
+            satellite.setCurrStorageUnused(buffer.getInt());
+            boolean anticlockwise = buffer.get() != 0;
+            if (satellite instanceof TeleportingSatellite) {
+                ((TeleportingSatellite) satellite).setAnticlockwise(anticlockwise);
+            }
+            readFiles(buffer, satellite);
+            registry.addSatellite(satellite);
+            entities.add(satellite);
+        }
+
+        // Transfers were scheduled as they started so they complete a fixed number of minutes after
+        for (int i = buffer.getInt(); i > 0; i--) {
+            Entity receiver = entities.get(buffer.getInt());
+            File file = receiver.getFile(getString(buffer));
+            if (file == null) {
+                throw new IOException("Scheduled transfer to " + receiver.getId() + " has no file");
+            }
+            transfers.scheduleAt(file, receiver, file.getStartMinute() + file.getMinsRequired());
+        }
+
+        return new ControllerSnapshot(registry, transfers);
+    }
+
+    private static void readFiles(MappedByteBuffer buffer, Entity entity) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            File file = new File(getString(buffer), getString(buffer));
+            byte flags = buffer.get();
+            file.setTransferStatus((flags & TRANSFER_COMPLETE) != 0);
+            if ((flags & CONTENT_COMPLETE) != 0) {
+                file.setContentComplete();
+            }
+            file.setMinsRequired(buffer.getInt());
+            file.startTransfer(buffer.getInt(), buffer.getLong());
+            entity.addFile(file);
+        }
+    }
+
+    private static String getString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Number of bytes a string takes as UTF-8, without encoding it
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced with '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
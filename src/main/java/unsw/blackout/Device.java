@@ -1,6 +1,7 @@
 package unsw.blackout;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import unsw.utils.Angle;
@@ -11,17 +12,24 @@ public abstract class Device extends Entity {
         super(deviceId, position, type, range);
     }
 
+    /*
+     * Devices always sit on the surface of Jupiter
+     */
+    @Override
+    public double getHeight() {
+        return MathsHelper.RADIUS_OF_JUPITER;
+    }
+
     /*
      * Method to get all entities in range for a device
      * @param satelliteList
      * @returns satellitesInRange
      */
-    public List<String> getInRangeForDevices(List<Satellite> satelliteList) {
+    public List<String> getInRangeForDevices(Collection<Satellite> satelliteList) {
         List<String> satellitesInRange = new ArrayList<String>();
 
         for (Satellite satellite : satelliteList) {
-            if (inRangeDevandSat(satellite)
-                    && !(satellite instanceof StandardSatellite && getType().equals("DesktopDevice"))) {
+            if (canReachDirectly(satellite)) {
                 satellitesInRange.add(satellite.getId());
             }
         }
@@ -29,17 +37,19 @@ public abstract class Device extends Entity {
         return satellitesInRange;
     }
 
+    /*
+     * Devices only reach satellites, and desktops can't reach standard satellites
+     */
+    @Override
+    public boolean canReachDirectly(Entity other) {
+        return other instanceof Satellite && inRangeDevandSat((Satellite) other)
+                && !(other instanceof StandardSatellite && getType().equals("DesktopDevice"));
+    }
+
     /*
      * Helper to check the range between a device and a satellite
      */
     private boolean inRangeDevandSat(Satellite satellite) {
-        double satelliteDistance = MathsHelper.getDistance(satellite.getHeight(), satellite.getPosition(),
-                getPosition());
-        boolean satelliteVisible = MathsHelper.isVisible(satellite.getHeight(), satellite.getPosition(), getPosition());
-
-        if (satelliteDistance <= getRange() && satelliteVisible) {
-            return true;
-        }
-        return false;
+        return MathsHelper.isCommunicable(satellite.getX(), satellite.getY(), getX(), getY(), getRange());
     }
 }
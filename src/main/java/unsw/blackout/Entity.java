@@ -1,10 +1,15 @@
 package unsw.blackout;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
 
+import unsw.response.models.EntityInfoResponse;
 import unsw.response.models.FileInfoResponse;
 import unsw.utils.Angle;
 
@@ -12,14 +17,25 @@ public abstract class Entity {
     private String id;
     private String type;
     private Angle position;
-    private ArrayList<File> fileList;
+    // Keyed by file name, in the order files were added
+    private Map<String, File> files;
+    private Set<File> filesInFlight;
+    // Last info response handed out, cleared whenever anything it shows changes
+    private EntityInfoResponse cachedInfo;
+    private long cachedInfoMinute;
     private double range;
+    // Euclidean coordinates of position, worked out lazily and cleared on every move.
+    // Concurrent readers may both work them out, they get the same values either way
+    private double x;
+    private double y;
+    private volatile boolean coordinatesCached;
 
     public Entity(String id, Angle position, String type, double range) {
         this.id = id;
         this.type = type;
         this.position = position;
-        this.fileList = new ArrayList<File>();
+        this.files = new LinkedHashMap<String, File>();
+        this.filesInFlight = new HashSet<File>();
         this.range = range;
     }
 
@@ -37,38 +53,107 @@ public abstract class Entity {
 
     public void setPosition(Angle position) {
         this.position = position;
+        this.coordinatesCached = false;
+        this.cachedInfo = null;
+    }
+
+    public double getX() {
+        cacheCoordinates();
+        return x;
+    }
+
+    public double getY() {
+        cacheCoordinates();
+        return y;
+    }
+
+    /*
+     * Converts the current position to euclidean coordinates once
+     * so pairwise range checks don't repeat the trig
+     */
+    private void cacheCoordinates() {
+        if (coordinatesCached) {
+            return;
+        }
+        x = Math.cos(position.toRadians()) * getHeight();
+        y = Math.sin(position.toRadians()) * getHeight();
+        coordinatesCached = true;
     }
 
     public double getRange() {
         return range;
     }
 
+    /*
+     * Distance of the entity from the centre of Jupiter
+     */
+    public abstract double getHeight();
+
+    /*
+     * Abstract method to check if another entity is in range of this one and
+     * allowed to receive from it, without going through any relays
+     * @params other
+     * @returns boolean
+     */
+    public abstract boolean canReachDirectly(Entity other);
+
     public File getFile(String fileName) {
-        for (File file : fileList) {
-            if (file.getFileName().equals(fileName)) {
-                return file;
-            }
-        }
-        return null;
+        return files.get(fileName);
     }
 
-    public ArrayList<File> getFileList() {
-        return fileList;
+    public List<File> getFileList() {
+        return new ArrayList<File>(files.values());
     }
 
-    public void setFileList(ArrayList<File> fileList) {
-        this.fileList = fileList;
+    public int getFileCount() {
+        return files.size();
     }
 
+    /*
+     * Method to add a file, replacing any file already there with the same name
+     * @params newFile
+     */
     public void addFile(File newFile) {
-        fileList.add(newFile);
+        File replaced = files.put(newFile.getFileName(), newFile);
+        if (replaced != null) {
+            filesInFlight.remove(replaced);
+        }
+        if (!newFile.isTransferStatus()) {
+            filesInFlight.add(newFile);
+        }
+        cachedInfo = null;
+    }
+
+    /*
+     * Method to get info on this entity as of the given minute. The same
+     * response is returned until the entity moves, gains a file or a
+     * transfer progresses, so it must not be modified. Synchronized as
+     * concurrent readers may both try to refresh the cached response
+     * @params currentMinute
+     * @returns EntityInfoResponse
+     */
+    public synchronized EntityInfoResponse getInfo(long currentMinute) {
+        boolean transferProgressed = !filesInFlight.isEmpty() && cachedInfoMinute != currentMinute;
+        if (cachedInfo == null || transferProgressed) {
+            cachedInfo = new EntityInfoResponse(id, position, getHeight(), type,
+                    Collections.unmodifiableMap(fileMap(currentMinute)));
+            cachedInfoMinute = currentMinute;
+        }
+        return cachedInfo;
     }
 
-    public Map<String, FileInfoResponse> fileMap() {
+    /*
+     * Method to get info on every file as of the given minute,
+     * including how much of any file being transferred has arrived
+     * @params currentMinute
+     * @returns map of file name to info
+     */
+    public Map<String, FileInfoResponse> fileMap(long currentMinute) {
         Map<String, FileInfoResponse> map = new HashMap<String, FileInfoResponse>();
 
-        for (File file : fileList) {
-            map.put(file.getFileName(), new FileInfoResponse(file.getFileName(), file.getContentComplete(),
+        for (File file : files.values()) {
+            CharSequence data = file.getReceivedContent(currentMinute);
+            map.put(file.getFileName(), new FileInfoResponse(file.getFileName(), data,
                     file.getFileSize(), file.isTransferStatus()));
         }
 
@@ -83,10 +168,9 @@ public abstract class Entity {
      * @returns ""
      */
     public String getFileToSend(String fileName) {
-        for (File file : fileList) {
-            if (file.getFileName() == fileName) {
-                return file.getFileContent();
-            }
+        File file = files.get(fileName);
+        if (file != null) {
+            return file.getFileContent();
         }
 
         return "";
@@ -100,7 +184,7 @@ public abstract class Entity {
      */
     public boolean checkIfInRange(List<String> communicableEntitiesOfSource, String toId) {
         for (String id : communicableEntitiesOfSource) {
-            if (id == toId) {
+            if (id.equals(toId)) {
                 return true;
             }
         }
@@ -108,14 +192,11 @@ public abstract class Entity {
     }
 
     /*
-     * Updating transfer of all of the files in this entity
+     * Called once a file being transferred to this entity has completed
+     * @params file
      */
-    public void updateEntityFiles() {
-        for (File file : getFileList()) {
-            if (!file.isTransferStatus()) {
-                file.decrementMinsRequired();
-                file.setFileTransferComplete();
-            }
-        }
+    public void transferCompleted(File file) {
+        filesInFlight.remove(file);
+        cachedInfo = null;
     }
 }
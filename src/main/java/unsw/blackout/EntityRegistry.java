@@ -0,0 +1,90 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Id indexed store of every device and satellite in the system.
+ *
+ * Entities are kept in insertion order so listing ids returns them in the
+ * order they were created, while lookups and removals are constant time.
+ */
+public class EntityRegistry {
+    private Map<String, Device> devices = new LinkedHashMap<String, Device>();
+    private Map<String, Satellite> satellites = new LinkedHashMap<String, Satellite>();
+
+    /*
+     * Method to register a device, the first device with a given id is kept
+     * @params device
+     */
+    public void addDevice(Device device) {
+        devices.putIfAbsent(device.getId(), device);
+    }
+
+    /*
+     * Method to register a satellite, the first satellite with a given id is kept
+     * @params satellite
+     */
+    public void addSatellite(Satellite satellite) {
+        satellites.putIfAbsent(satellite.getId(), satellite);
+    }
+
+    /*
+     * Method to remove a device given it's id
+     * @params deviceId
+     * @returns removed device or null
+     */
+    public Device removeDevice(String deviceId) {
+        return devices.remove(deviceId);
+    }
+
+    /*
+     * Method to remove a satellite given it's id
+     * @params satelliteId
+     * @returns removed satellite or null
+     */
+    public Satellite removeSatellite(String satelliteId) {
+        return satellites.remove(satelliteId);
+    }
+
+    public Device getDevice(String deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public Satellite getSatellite(String satelliteId) {
+        return satellites.get(satelliteId);
+    }
+
+    /*
+     * Method to get any entity given it's id, devices are checked first
+     * @params id
+     * @returns entity or null
+     */
+    public Entity getEntity(String id) {
+        Device device = devices.get(id);
+        if (device != null) {
+            return device;
+        }
+        return satellites.get(id);
+    }
+
+    public Collection<Device> getDevices() {
+        return Collections.unmodifiableCollection(devices.values());
+    }
+
+    public Collection<Satellite> getSatellites() {
+        return Collections.unmodifiableCollection(satellites.values());
+    }
+
+    public List<String> listDeviceIds() {
+        return new ArrayList<String>(devices.keySet());
+    }
+
+    public List<String> listSatelliteIds() {
+        return new ArrayList<String>(satellites.keySet());
+    }
+}
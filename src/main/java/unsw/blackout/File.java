@@ -1,5 +1,7 @@
 package unsw.blackout;
 
+import java.nio.CharBuffer;
+
 public class File {
     private String fileName;
     private String fileContent;
@@ -7,6 +9,9 @@ public class File {
     private boolean transferStatus;
     private String contentComplete;
     private int minsRequired;
+    // Bytes received per minute and the minute the transfer started, used to work out progress
+    private int bandwidth;
+    private long startMinute;
 
     public File(String fileName, String fileContent) {
         this.fileName = fileName;
@@ -45,6 +50,43 @@ public class File {
         contentComplete = fileContent;
     }
 
+    /*
+     * Method to record when a transfer of this file started and how
+     * many bytes arrive each minute
+     * @param bandwidth, startMinute
+     */
+    public void startTransfer(int bandwidth, long startMinute) {
+        this.bandwidth = bandwidth;
+        this.startMinute = startMinute;
+    }
+
+    /*
+     * Method to get how many bytes have arrived by the given minute
+     * @param currentMinute
+     * @returns int
+     */
+    public int getBytesReceived(long currentMinute) {
+        if (transferStatus) {
+            return contentComplete.length();
+        }
+        long received = Math.max(0, currentMinute - startMinute) * bandwidth;
+        return (int) Math.min(received, fileSize);
+    }
+
+    /*
+     * Method to get the content received so far by the given minute, a file
+     * still being transferred returns a view of the start of its content
+     * rather than a copy
+     * @param currentMinute
+     * @returns CharSequence
+     */
+    public CharSequence getReceivedContent(long currentMinute) {
+        if (transferStatus) {
+            return contentComplete;
+        }
+        return CharBuffer.wrap(fileContent, 0, getBytesReceived(currentMinute));
+    }
+
     public void setMinsRequired(int minsRequired) {
         this.minsRequired = minsRequired;
     }
@@ -53,8 +95,12 @@ public class File {
         return minsRequired;
     }
 
-    public void decrementMinsRequired() {
-        this.minsRequired--;
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    public long getStartMinute() {
+        return startMinute;
     }
 
     /*
@@ -72,12 +118,10 @@ public class File {
 
     /*
      * Method to set the file transfer to be complete
-     * once the mins required to complete has been decremented to 0
+     * once the mins required to complete have passed
      */
-    public void setFileTransferComplete() {
-        if (getMinsRequired() == 0) {
-            setContentComplete();
-            setTransferStatus(true);
-        }
+    public void completeTransfer() {
+        setContentComplete();
+        setTransferStatus(true);
     }
 }
@@ -0,0 +1,286 @@
+package unsw.blackout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import unsw.utils.Angle;
+
+/**
+ * Append only log of every change made to a BlackoutController, so the same
+ * changes can be replayed onto a new controller after a crash or to reproduce
+ * an incident.
+ *
+ * Records are buffered in memory and written with a single fsync every commit
+ * interval (group commit), so a crash loses at most that interval of changes
+ * and callers never wait on the disk. Each record is
+ *
+ * <pre>
+ * int length, int crc32 of the body, body: byte op then its arguments
+ * </pre>
+ *
+ * with strings as an int byte length followed by UTF-8. A record cut short by
+ * a crash fails its length or checksum and ends the replay.
+ */
+public class MutationJournal implements AutoCloseable {
+    private static final byte CREATE_DEVICE = 1;
+    private static final byte CREATE_SATELLITE = 2;
+    private static final byte REMOVE_DEVICE = 3;
+    private static final byte REMOVE_SATELLITE = 4;
+    private static final byte ADD_FILE = 5;
+    private static final byte SEND_FILE = 6;
+    private static final byte SIMULATE = 7;
+    private static final byte RESTORE_SNAPSHOT = 8;
+
+    // Shared by every journal, committing only holds the one journal's lock
+    private static final ScheduledExecutorService COMMITTER = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "journal-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final FileChannel channel;
+    private final ScheduledFuture<?> committing;
+    private final CRC32 crc = new CRC32();
+    // Records appended since the last commit
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private boolean closed = false;
+
+    /*
+     * Opens the journal at path, appending to it if it already exists, and
+     * commits whatever has been recorded every commitMillis
+     * @params path, commitMillis
+     */
+    public MutationJournal(Path path, long commitMillis) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        committing = COMMITTER.scheduleWithFixedDelay(this::commitQuietly, commitMillis, commitMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    void createDevice(String deviceId, String type, Angle position) {
+        append(CREATE_DEVICE, () -> {
+            writeString(deviceId);
+            writeString(type);
+            bodyOut.writeDouble(position.toRadians());
+        });
+    }
+
+    void createSatellite(String satelliteId, String type, double height, Angle position) {
+        append(CREATE_SATELLITE, () -> {
+            writeString(satelliteId);
+            writeString(type);
+            bodyOut.writeDouble(height);
+            bodyOut.writeDouble(position.toRadians());
+        });
+    }
+
+    void removeDevice(String deviceId) {
+        append(REMOVE_DEVICE, () -> writeString(deviceId));
+    }
+
+    void removeSatellite(String satelliteId) {
+        append(REMOVE_SATELLITE, () -> writeString(satelliteId));
+    }
+
+    void addFile(String deviceId, String fileName, String content) {
+        append(ADD_FILE, () -> {
+            writeString(deviceId);
+            writeString(fileName);
+            writeString(content);
+        });
+    }
+
+    void sendFile(String fileName, String fromId, String toId) {
+        append(SEND_FILE, () -> {
+            writeString(fileName);
+            writeString(fromId);
+            writeString(toId);
+        });
+    }
+
+    void simulate(int minutes) {
+        append(SIMULATE, () -> bodyOut.writeInt(minutes));
+    }
+
+    // Only the snapshot's path is kept, replaying needs the snapshot file to still be there
+    void restoreSnapshot(Path path) {
+        append(RESTORE_SNAPSHOT, () -> writeString(path.toAbsolutePath().toString()));
+    }
+
+    private interface Arguments {
+        void write() throws IOException;
+    }
+
+    private synchronized void append(byte op, Arguments arguments) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        try {
+            body.reset();
+            bodyOut.writeByte(op);
+            arguments.write();
+
+            crc.reset();
+            crc.update(body.toByteArray());
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(body.size());
+            out.writeInt((int) crc.getValue());
+            body.writeTo(out);
+        } catch (IOException e) {
+            // Only ever writing to memory here
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        bodyOut.writeInt(bytes.length);
+        bodyOut.write(bytes);
+    }
+
+    /*
+     * Method to write and fsync every record appended so far
+     */
+    public void commit() throws IOException {
+        // Taking a batch and writing it happen under one lock, so batches reach the file in the order they
+        // were taken and close() waits for a commit that is already running. Appends only wait for the swap
+        synchronized (channel) {
+            ByteArrayOutputStream batch;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = new ByteArrayOutputStream();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            // Throwing would stop every later commit, report it and try again next time
+            System.err.println("Journal commit failed: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Method to commit anything outstanding and close the journal
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        committing.cancel(false);
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*
+     * Method to apply every complete record in a journal to a controller,
+     * usually a new one, in the order they were recorded
+     * @params path, controller
+     * @returns number of records replayed
+     */
+    public static int replay(Path path, BlackoutController controller) throws IOException {
+        ByteBuffer journal;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int replayed = 0;
+        CRC32 check = new CRC32();
+        while (journal.remaining() >= 2 * Integer.BYTES) {
+            int length = journal.getInt();
+            int expectedCrc = journal.getInt();
+            if (length <= 0 || length > journal.remaining()) {
+                break;
+            }
+            ByteBuffer record = journal.slice();
+            record.limit(length);
+            journal.position(journal.position() + length);
+
+            check.reset();
+            check.update(record.duplicate());
+            if ((int) check.getValue() != expectedCrc) {
+                break;
+            }
+            apply(record, controller);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private static void apply(ByteBuffer record, BlackoutController controller) throws IOException {
+        byte op = record.get();
+        switch (op) {
+        case CREATE_DEVICE:
+            controller.createDevice(readString(record), readString(record), Angle.fromRadians(record.getDouble()));
+            break;
+        case CREATE_SATELLITE:
+            controller.createSatellite(readString(record), readString(record), record.getDouble(),
+                    Angle.fromRadians(record.getDouble()));
+            break;
+        case REMOVE_DEVICE:
+            controller.removeDevice(readString(record));
+            break;
+        case REMOVE_SATELLITE:
+            controller.removeSatellite(readString(record));
+            break;
+        case ADD_FILE:
+            controller.addFileToDevice(readString(record), readString(record), readString(record));
+            break;
+        case SEND_FILE:
+            try {
+                controller.sendFile(readString(record), readString(record), readString(record));
+            } catch (FileTransferException e) {
+                throw new IOException("Recorded transfer failed on replay", e);
+            }
+            break;
+        case SIMULATE:
+            controller.simulate(record.getInt());
+            break;
+        case RESTORE_SNAPSHOT:
+            controller.restoreSnapshot(Paths.get(readString(record)));
+            break;
+        default:
+            throw new IOException("Unknown journal record " + op);
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
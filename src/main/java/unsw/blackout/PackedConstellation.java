@@ -0,0 +1,211 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import unsw.utils.Angle;
+
+/**
+ * Struct of arrays copy of every satellite's orbit used to simulate movement
+ * without touching the Satellite objects.
+ *
+ * Satellites are packed grouped by type so each type moves in its own tight
+ * loop over primitive arrays. New positions are only turned back into Angle
+ * objects on the Satellite when something asks for them through sync().
+ */
+public class PackedConstellation {
+    private static final byte ANTICLOCKWISE = 1;
+    private static final int MIN_CHUNK = 1024;
+
+    private Satellite[] satellites = new Satellite[0];
+    private Map<Satellite, Integer> slots = new IdentityHashMap<Satellite, Integer>();
+    private double[] radians = new double[0];
+    private double[] heights = new double[0];
+    private double[] linearVelocities = new double[0];
+    private byte[] flags = new byte[0];
+    private boolean[] stale = new boolean[0];
+    private int relayStart;
+    private int teleportingStart;
+    private boolean anyStale;
+    private boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /*
+     * Marks the packed state as out of date, e.g. when a satellite is added
+     * or removed, so it gets repacked before the next tick
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    /*
+     * Method to pack the orbits of the given satellites, grouped by type
+     * @params satellites
+     */
+    public void load(Collection<Satellite> allSatellites) {
+        List<Satellite> ordered = new ArrayList<Satellite>(allSatellites.size());
+        for (Satellite satellite : allSatellites) {
+            if (satellite instanceof StandardSatellite) {
+                ordered.add(satellite);
+            }
+        }
+        relayStart = ordered.size();
+        for (Satellite satellite : allSatellites) {
+            if (satellite instanceof RelaySatellite) {
+                ordered.add(satellite);
+            }
+        }
+        teleportingStart = ordered.size();
+        for (Satellite satellite : allSatellites) {
+            if (satellite instanceof TeleportingSatellite) {
+                ordered.add(satellite);
+            }
+        }
+
+        int size = ordered.size();
+        satellites = ordered.toArray(new Satellite[size]);
+        slots.clear();
+        radians = new double[size];
+        heights = new double[size];
+        linearVelocities = new double[size];
+        flags = new byte[size];
+        stale = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            Satellite satellite = satellites[i];
+            slots.put(satellite, i);
+            radians[i] = satellite.getPosition().toRadians();
+            heights[i] = satellite.getHeight();
+            linearVelocities[i] = satellite.getLinearVelocity();
+            if (satellite instanceof TeleportingSatellite && ((TeleportingSatellite) satellite).isAnticlockwise()) {
+                flags[i] = ANTICLOCKWISE;
+            }
+        }
+
+        anyStale = false;
+        loaded = true;
+    }
+
+    /*
+     * Moves every packed satellite forward by one minute
+     */
+    public void advance() {
+        advanceRange(0, satellites.length);
+        markMoved();
+    }
+
+    /*
+     * Moves every packed satellite forward by one minute, splitting the arrays
+     * into chunks across the given pool and returning once every chunk is done
+     * @params pool
+     */
+    public void advance(ForkJoinPool pool) {
+        int size = satellites.length;
+        int chunk = Math.max(MIN_CHUNK, (size + pool.getParallelism() - 1) / pool.getParallelism());
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int from = 0; from < size; from += chunk) {
+            int start = from;
+            int end = Math.min(from + chunk, size);
+            tasks.add(pool.submit(() -> advanceRange(start, end)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        markMoved();
+    }
+
+    /*
+     * Moves the satellites in slots [from, to), each type in its own loop
+     */
+    private void advanceRange(int from, int to) {
+        advanceStandard(from, Math.min(to, relayStart));
+        advanceRelay(Math.max(from, relayStart), Math.min(to, teleportingStart));
+        advanceTeleporting(Math.max(from, teleportingStart), to);
+    }
+
+    private void markMoved() {
+        if (satellites.length > 0) {
+            Arrays.fill(stale, true);
+            anyStale = true;
+        }
+    }
+
+    private void advanceStandard(int from, int to) {
+        for (int i = from; i < to; i++) {
+            radians[i] = StandardSatellite.nextRadians(radians[i], linearVelocities[i] / heights[i]);
+        }
+    }
+
+    private void advanceRelay(int from, int to) {
+        for (int i = from; i < to; i++) {
+            double angularVelocity = linearVelocities[i] / heights[i];
+            if (RelaySatellite.isTurning(radians[i], linearVelocities[i])) {
+                radians[i] += angularVelocity;
+                linearVelocities[i] = -linearVelocities[i];
+            } else {
+                radians[i] -= angularVelocity;
+            }
+        }
+    }
+
+    private void advanceTeleporting(int from, int to) {
+        for (int i = from; i < to; i++) {
+            double newPos = TeleportingSatellite.nextRadians(radians[i], linearVelocities[i] / heights[i],
+                    flags[i] == ANTICLOCKWISE);
+            if (TeleportingSatellite.isTeleporting(newPos)) {
+                radians[i] = 0;
+                flags[i] = 0;
+            } else {
+                radians[i] = newPos;
+            }
+        }
+    }
+
+    /*
+     * Method to copy the packed orbit of a single satellite back onto it
+     * @params satellite
+     */
+    public void sync(Satellite satellite) {
+        Integer slot = slots.get(satellite);
+        if (slot != null) {
+            syncSlot(slot);
+        }
+    }
+
+    /*
+     * Method to copy every packed orbit that has moved back onto its satellite
+     */
+    public void syncAll() {
+        if (!anyStale) {
+            return;
+        }
+        for (int i = 0; i < satellites.length; i++) {
+            syncSlot(i);
+        }
+        anyStale = false;
+    }
+
+    private void syncSlot(int slot) {
+        if (!stale[slot]) {
+            return;
+        }
+
+        Satellite satellite = satellites[slot];
+        satellite.setPosition(Angle.fromRadians(radians[slot]));
+        satellite.setLinearVelocity(linearVelocities[slot]);
+        if (satellite instanceof TeleportingSatellite) {
+            ((TeleportingSatellite) satellite).setAnticlockwise(flags[slot] == ANTICLOCKWISE);
+        }
+        stale[slot] = false;
+    }
+}
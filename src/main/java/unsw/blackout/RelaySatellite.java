@@ -21,10 +21,7 @@ public class RelaySatellite extends Satellite {
         double angularVelocity = super.getLinearVelocity() / super.getHeight();
         double newPos;
 
-        // If < 140 or > 190 or if at 345 with negative velocity
-        if (currPos.compareTo(MIN) == -1 || currPos.compareTo(MAX) == 1
-                || (currPos.compareTo(THRESHOLD) == 0 && getLinearVelocity() < 0)) {
-
+        if (isTurning(currPos.toRadians(), getLinearVelocity())) {
             newPos = currPos.toRadians() + angularVelocity;
             setLinearVelocity(-getLinearVelocity()); // Reverse linear velocity
         } else {
@@ -33,4 +30,71 @@ public class RelaySatellite extends Satellite {
 
         super.setPosition(Angle.fromRadians(newPos));
     }
+
+    /*
+     * fastForward plays every bounce the same way changePosition would,
+     * so a relay can always be jumped
+     */
+    @Override
+    public int minutesOfSteadyMovement() {
+        return Integer.MAX_VALUE;
+    }
+
+    /*
+     * Moves along each stretch inside the window in one go with
+     * addRepeatedly and turns around a minute at a time, rounding exactly as
+     * changePosition would. Where it goes next only depends on where it is and
+     * which way it is going, so once it turns around in the same place going
+     * the same way as it first did, every whole cycle left is skipped
+     */
+    @Override
+    public void fastForward(int minutes) {
+        double radians = getPosition().toRadians();
+        double linearVelocity = getLinearVelocity();
+        double height = getHeight();
+
+        double firstTurnRadians = 0;
+        double firstTurnVelocity = 0;
+        int firstTurnMinute = -1;
+        boolean cyclesSkipped = false;
+        int minute = 0;
+        int remaining = minutes;
+        while (remaining > 0) {
+            if (isTurning(radians, linearVelocity)) {
+                if (firstTurnMinute < 0) {
+                    firstTurnRadians = radians;
+                    firstTurnVelocity = linearVelocity;
+                    firstTurnMinute = minute;
+                } else if (!cyclesSkipped && radians == firstTurnRadians && linearVelocity == firstTurnVelocity) {
+                    remaining %= minute - firstTurnMinute;
+                    cyclesSkipped = true;
+                    continue;
+                }
+                radians += linearVelocity / height;
+                linearVelocity = -linearVelocity;
+                minute++;
+                remaining--;
+                continue;
+            }
+
+            // Clockwise heads for the bottom of the window, anticlockwise for the top
+            double gap = linearVelocity > 0 ? radians - MIN.toRadians() : MAX.toRadians() - radians;
+            int straight = Math.max(1, Math.min(remaining, minutesToCover(gap, Math.abs(linearVelocity) / height)));
+            radians = addRepeatedly(radians, -(linearVelocity / height), straight);
+            minute += straight;
+            remaining -= straight;
+        }
+
+        setPosition(Angle.fromRadians(radians));
+        setLinearVelocity(linearVelocity);
+    }
+
+    /*
+     * Whether the satellite turns around this minute rather than continuing
+     * If < 140 or > 190 or if at 345 with negative velocity
+     */
+    static boolean isTurning(double radians, double linearVelocity) {
+        return radians < MIN.toRadians() || radians > MAX.toRadians()
+                || (radians == THRESHOLD.toRadians() && linearVelocity < 0);
+    }
 }
@@ -0,0 +1,121 @@
+package unsw.blackout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Works out which entities can be reached from each entity, either directly
+ * or through a chain of relay satellites forwarding along the way.
+ *
+ * Routes are found with a breadth first search over direct range, where only
+ * relay satellites are expanded. Both the direct neighbours of every entity
+ * visited and the routes from every source are kept until the table is
+ * invalidated, which the controller does whenever anything moves or is added
+ * or removed. Every range query and sendFile in the same minute after the
+ * first one is then just a lookup.
+ *
+ * Entities reached through relays follow the same rules as direct contact:
+ * devices never reach other devices, and desktop devices and standard
+ * satellites never reach each other.
+ */
+class RouteTable {
+    private final Function<String, Entity> lookup;
+    private final Function<Entity, List<String>> directNeighbours;
+    private final Map<String, List<String>> direct = new HashMap<String, List<String>>();
+    private final Map<String, List<String>> routes = new HashMap<String, List<String>>();
+
+    /*
+     * Creates a table finding entities by id with lookup and working out what
+     * is directly in range of an entity with directNeighbours
+     * @params lookup, directNeighbours
+     */
+    RouteTable(Function<String, Entity> lookup, Function<Entity, List<String>> directNeighbours) {
+        this.lookup = lookup;
+        this.directNeighbours = directNeighbours;
+    }
+
+    public void invalidate() {
+        direct.clear();
+        routes.clear();
+    }
+
+    /*
+     * Method to get every entity reachable from the source, the entities
+     * directly in range first in the order they are found, then those only
+     * reachable through relays in the order the search reaches them
+     * @params source
+     * @returns ids of reachable entities, must not be modified
+     */
+    public List<String> reachableFrom(Entity source) {
+        List<String> route = routes.get(source.getId());
+        if (route == null) {
+            route = Collections.unmodifiableList(search(source));
+            routes.put(source.getId(), route);
+        }
+        return route;
+    }
+
+    private List<String> search(Entity source) {
+        // What the source reaches directly is kept exactly as direct range finds it
+        Set<String> reached = new LinkedHashSet<String>(directOf(source));
+        Set<String> expanded = new HashSet<String>();
+        if (source instanceof RelaySatellite) {
+            expanded.add(source.getId());
+        }
+        Queue<RelaySatellite> relays = new ArrayDeque<RelaySatellite>();
+        for (String id : reached) {
+            queueIfRelay(lookup.apply(id), expanded, relays);
+        }
+
+        while (!relays.isEmpty()) {
+            for (String id : directOf(relays.remove())) {
+                if (id.equals(source.getId()) || reached.contains(id)) {
+                    continue;
+                }
+                Entity entity = lookup.apply(id);
+                if (entity != null && canCommunicate(source, entity)) {
+                    reached.add(id);
+                    queueIfRelay(entity, expanded, relays);
+                }
+            }
+        }
+
+        return new ArrayList<String>(reached);
+    }
+
+    private List<String> directOf(Entity entity) {
+        return direct.computeIfAbsent(entity.getId(), id -> directNeighbours.apply(entity));
+    }
+
+    private static void queueIfRelay(Entity entity, Set<String> expanded, Queue<RelaySatellite> relays) {
+        if (entity instanceof RelaySatellite && expanded.add(entity.getId())) {
+            relays.add((RelaySatellite) entity);
+        }
+    }
+
+    /*
+     * Whether two entities are allowed to talk at all, whatever is between them
+     * @params source, target
+     * @returns boolean
+     */
+    private static boolean canCommunicate(Entity source, Entity target) {
+        if (source instanceof Device && target instanceof Device) {
+            return false;
+        }
+        return !(isDesktop(source) && target instanceof StandardSatellite)
+                && !(isDesktop(target) && source instanceof StandardSatellite);
+    }
+
+    private static boolean isDesktop(Entity entity) {
+        return entity instanceof Device && entity.getType().equals("DesktopDevice");
+    }
+}
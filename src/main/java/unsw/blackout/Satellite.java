@@ -1,6 +1,7 @@
 package unsw.blackout;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import unsw.blackout.FileTransferException.VirtualFileNoStorageSpaceException;
@@ -30,6 +31,7 @@ public abstract class Satellite extends Entity {
         this.currStorageUnused = maxStorage;
     }
 
+    @Override
     public double getHeight() {
         return height;
     }
@@ -93,24 +95,121 @@ public abstract class Satellite extends Entity {
      */
     public abstract void changePosition();
 
+    /*
+     * Abstract method to get how many minutes the satellite can be moved with
+     * fastForward for, i.e. without teleporting or doing anything else
+     * fastForward can't play out
+     * @returns minutes, Integer.MAX_VALUE if it never changes
+     */
+    public abstract int minutesOfSteadyMovement();
+
+    /*
+     * Abstract method to move the satellite forward a number of minutes in one go,
+     * ending up exactly where changePosition would after as many minutes.
+     * Only valid for at most minutesOfSteadyMovement() minutes
+     * @param minutes
+     */
+    public abstract void fastForward(int minutes);
+
+    /*
+     * Helper to work out how many whole minutes can be taken moving at
+     * the given angular speed before covering the given angle. One minute
+     * is kept spare so rounding never lets a jump step past the boundary
+     * @param radians, angularSpeed
+     * @returns minutes
+     */
+    protected static int minutesToCover(double radians, double angularSpeed) {
+        if (angularSpeed <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double minutes = Math.floor(radians / angularSpeed) - 1;
+        if (minutes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(minutes, Integer.MAX_VALUE);
+    }
+
+    /*
+     * Helper to add the same angle a number of times, rounding exactly as
+     * adding it once a minute would. While the result stays within one power
+     * of two every addition rounds to the same multiple of the ulp, so those
+     * additions are taken together in one multiplication
+     * @params radians, delta, times
+     * @returns radians
+     */
+    protected static double addRepeatedly(double radians, double delta, long times) {
+        long remaining = times;
+        while (remaining > 0) {
+            long together = additionsRoundingAlike(radians, delta, remaining);
+            if (together == 0) {
+                radians += delta;
+                remaining--;
+            } else {
+                radians += together * roundedToUlp(radians, delta);
+                remaining -= together;
+            }
+        }
+        return radians;
+    }
+
+    /*
+     * How many of the next additions land in the same power of two as radians
+     * with half an ulp to spare, so each rounds delta to the same multiple of
+     * its ulp. 0 if even one of them might not, and all of them if none move it
+     */
+    private static long additionsRoundingAlike(double radians, double delta, long remaining) {
+        double magnitude = Math.abs(radians);
+        if (magnitude < Double.MIN_NORMAL || Double.isInfinite(magnitude)) {
+            return 0;
+        }
+        double ulp = Math.ulp(radians);
+        double ulps = delta / ulp;
+        // Halfway rounds to even, which depends on radians rather than delta
+        if (Math.abs(ulps) > 1L << 52 || Math.abs(ulps - Math.rint(ulps)) == 0.5) {
+            return 0;
+        }
+
+        double low = Math.scalb(1.0, Math.getExponent(radians));
+        double step = Math.abs(roundedToUlp(radians, delta));
+        double room;
+        if (step == 0) {
+            room = Math.min(magnitude - low, 2 * low - magnitude) - ulp;
+            return room >= 0 ? remaining : 0;
+        } else if ((delta > 0) == (radians > 0)) {
+            room = 2 * low - ulp - magnitude;
+        } else {
+            room = magnitude - low - ulp;
+        }
+
+        long together = (long) Math.min(Math.floor(room / step), remaining);
+        // The division can round up onto a whole number of steps that doesn't fit
+        if (together > 0 && together * step > room) {
+            together--;
+        }
+        return Math.max(together, 0);
+    }
+
+    private static double roundedToUlp(double radians, double delta) {
+        double ulp = Math.ulp(radians);
+        return Math.rint(delta / ulp) * ulp;
+    }
+
     /*
      * Method to get all entities in range for a satellite
      * @param satelliteList, deviceList
      * @returns satellitesInRange
      */
-    public List<String> getInRangeForSatellites(List<Satellite> satelliteList, List<Device> deviceList) {
+    public List<String> getInRangeForSatellites(Collection<Satellite> satelliteList, Collection<Device> deviceList) {
         List<String> satellitesInRange = new ArrayList<String>();
 
         for (Satellite satellite : satelliteList) {
-            if (satellite.getId() != getId()) {
-                if (inRangeSatandSat(satellite)) {
-                    satellitesInRange.add(satellite.getId());
-                }
+            if (canReachDirectly(satellite)) {
+                satellitesInRange.add(satellite.getId());
             }
         }
 
         for (Device device : deviceList) {
-            if (inRangeSatandDev(device)) {
+            if (canReachDirectly(device)) {
                 satellitesInRange.add(device.getId());
             }
         }
@@ -118,32 +217,29 @@ public abstract class Satellite extends Entity {
         return satellitesInRange;
     }
 
+    /*
+     * Satellites reach every other satellite and device in range they can see
+     */
+    @Override
+    public boolean canReachDirectly(Entity other) {
+        if (other instanceof Satellite) {
+            return !other.getId().equals(getId()) && inRangeSatandSat((Satellite) other);
+        }
+        return inRangeSatandDev((Device) other);
+    }
+
     /*
      * Helper to check the range between a satellite and a satellite
      */
     public boolean inRangeSatandSat(Satellite satellite) {
-        double satelliteDistance = MathsHelper.getDistance(height, getPosition(), satellite.getHeight(),
-                satellite.getPosition());
-        boolean satelliteVisible = MathsHelper.isVisible(height, getPosition(), satellite.getHeight(),
-                satellite.getPosition());
-
-        if (satelliteDistance <= getRange() && satelliteVisible) {
-            return true;
-        }
-        return false;
+        return MathsHelper.isCommunicable(getX(), getY(), satellite.getX(), satellite.getY(), getRange());
     }
 
     /*
      * Helper to check the range between a satellite and a device
      */
     public boolean inRangeSatandDev(Device device) {
-        double deviceDistance = MathsHelper.getDistance(height, getPosition(), device.getPosition());
-        boolean deviceVisible = MathsHelper.isVisible(height, getPosition(), device.getPosition());
-
-        if (deviceDistance <= getRange() && deviceVisible) {
-            return true;
-        }
-        return false;
+        return MathsHelper.isCommunicable(getX(), getY(), device.getX(), device.getY(), getRange());
     }
 
     /*
@@ -152,18 +248,9 @@ public abstract class Satellite extends Entity {
      * numbers must be updated
      */
     @Override
-    public void updateEntityFiles() {
-        for (File file : getFileList()) {
-            if (!file.isTransferStatus()) {
-                file.decrementMinsRequired();
-                file.setFileTransferComplete();
-
-                if (file.isTransferStatus()) {
-                    setSatelliteFileComplete();
-                }
-            }
-
-        }
+    public void transferCompleted(File file) {
+        super.transferCompleted(file);
+        setSatelliteFileComplete();
     }
 
     private void setSatelliteFileComplete() {
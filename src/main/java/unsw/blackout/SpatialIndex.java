@@ -0,0 +1,133 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Buckets entities into angular sectors and radial shells so that range
+ * queries only have to test entities in nearby buckets.
+ *
+ * Shells are as thick as the largest range being queried, so a query only
+ * ever looks at the shell it is in and its neighbours. Within a shell only
+ * sectors that could be within range are visited, using the fact that two
+ * points separated by an angle of delta are at least max(h1, h2) * sin(delta)
+ * apart.
+ *
+ * The index is rebuilt lazily the first time it is queried after being
+ * invalidated, e.g. after a simulate() tick or an entity being added/removed.
+ */
+public class SpatialIndex<T extends Entity> {
+    private static final int SECTORS = 64;
+    private static final double SECTOR_WIDTH = 2 * Math.PI / SECTORS;
+
+    private TreeMap<Integer, List<List<Entry<T>>>> shells = new TreeMap<Integer, List<List<Entry<T>>>>();
+    private double shellHeight = 1;
+    private boolean dirty = true;
+
+    private static final class Entry<T> {
+        private final T entity;
+        private final int order;
+
+        private Entry(T entity, int order) {
+            this.entity = entity;
+            this.order = order;
+        }
+    }
+
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /*
+     * Method to rebuild every bucket from the given entities, insertion order
+     * of the collection is kept so query results come back in the same order
+     * @params entities, maxRange
+     */
+    public void rebuild(Collection<T> entities, double maxRange) {
+        shells.clear();
+        shellHeight = Math.max(maxRange, 1);
+
+        int order = 0;
+        for (T entity : entities) {
+            List<List<Entry<T>>> sectors = shells.computeIfAbsent(shellOf(entity.getHeight()), k -> newSectors());
+            sectors.get(sectorOf(entity.getPosition().toRadians())).add(new Entry<T>(entity, order++));
+        }
+
+        dirty = false;
+    }
+
+    /*
+     * Method to get every entity that could possibly be within range of a point,
+     * callers still have to check the exact distance and visibility
+     * @params height, radians, range
+     * @returns candidates in insertion order
+     */
+    public List<T> candidatesInRange(double height, double radians, double range) {
+        List<Entry<T>> found = new ArrayList<Entry<T>>();
+
+        Map<Integer, List<List<Entry<T>>>> nearShells = shells.subMap(shellOf(height - range), true,
+                shellOf(height + range), true);
+        for (Map.Entry<Integer, List<List<Entry<T>>>> shell : nearShells.entrySet()) {
+            double shellFloor = Math.max(shell.getKey() * shellHeight, 0);
+            double maxAngle = maxAngularSeparation(Math.max(height, shellFloor), range);
+            collectSectors(shell.getValue(), radians, maxAngle, found);
+        }
+
+        found.sort(Comparator.comparingInt(entry -> entry.order));
+        List<T> candidates = new ArrayList<T>(found.size());
+        for (Entry<T> entry : found) {
+            candidates.add(entry.entity);
+        }
+        return candidates;
+    }
+
+    /*
+     * Largest angle two points can be apart and still be within range,
+     * where the furthest of the two points is at least minHeight from the centre
+     */
+    private static double maxAngularSeparation(double minHeight, double range) {
+        if (range >= minHeight) {
+            return Math.PI;
+        }
+        return Math.asin(range / minHeight);
+    }
+
+    private void collectSectors(List<List<Entry<T>>> sectors, double radians, double maxAngle,
+            List<Entry<T>> found) {
+        // One sector of slack either side covers points sitting on a sector boundary
+        int first = (int) Math.floor((radians - maxAngle) / SECTOR_WIDTH) - 1;
+        int last = (int) Math.floor((radians + maxAngle) / SECTOR_WIDTH) + 1;
+        if (last - first + 1 >= SECTORS) {
+            first = 0;
+            last = SECTORS - 1;
+        }
+
+        for (int sector = first; sector <= last; sector++) {
+            found.addAll(sectors.get(Math.floorMod(sector, SECTORS)));
+        }
+    }
+
+    private int shellOf(double height) {
+        return (int) Math.floor(height / shellHeight);
+    }
+
+    private static int sectorOf(double radians) {
+        return Math.floorMod((int) Math.floor(radians / SECTOR_WIDTH), SECTORS);
+    }
+
+    private List<List<Entry<T>>> newSectors() {
+        List<List<Entry<T>>> sectors = new ArrayList<List<Entry<T>>>(SECTORS);
+        for (int i = 0; i < SECTORS; i++) {
+            sectors.add(new ArrayList<Entry<T>>());
+        }
+        return sectors;
+    }
+}
@@ -1,8 +1,5 @@
 package unsw.blackout;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import unsw.blackout.FileTransferException.VirtualFileNoStorageSpaceException;
 import unsw.utils.Angle;
 
@@ -16,25 +13,8 @@ public class StandardSatellite extends Satellite {
      * cannot send anything to DesktopDevices
      */
     @Override
-    public List<String> getInRangeForSatellites(List<Satellite> satelliteList, List<Device> deviceList) {
-        List<String> satellitesInRange = new ArrayList<String>();
-
-        for (Satellite satellite : satelliteList) {
-            if (satellite.getId() != getId()) {
-                if (inRangeSatandSat(satellite)) {
-                    satellitesInRange.add(satellite.getId());
-                }
-            }
-        }
-
-        for (Device device : deviceList) {
-            // Only add if device is not DesktopDevice and is in range
-            if (inRangeSatandDev(device) && !(device instanceof DesktopDevice)) {
-                satellitesInRange.add(device.getId());
-            }
-        }
-
-        return satellitesInRange;
+    public boolean canReachDirectly(Entity other) {
+        return super.canReachDirectly(other) && !(other instanceof DesktopDevice);
     }
 
     /*
@@ -43,7 +23,7 @@ public class StandardSatellite extends Satellite {
      */
     @Override
     public void isAllStorageUsed(int fileSize) throws FileTransferException {
-        if (getFileList().size() > 3) {
+        if (getFileCount() > 3) {
             throw new VirtualFileNoStorageSpaceException("Max Files Reached");
         }
         if (getCurrStorageUnused() < fileSize) {
@@ -61,9 +41,54 @@ public class StandardSatellite extends Satellite {
         Angle currPos = super.getPosition();
         double angularVelocity = super.getLinearVelocity() / super.getHeight();
 
-        double newPos = currPos.toRadians() - angularVelocity;
-        newPos %= 360;
+        super.setPosition(Angle.fromRadians(nextRadians(currPos.toRadians(), angularVelocity)));
+    }
+
+    /*
+     * Minutes until the angle reaches 360 radians and nextRadians wraps it
+     * back, which jumps the satellite about 106 degrees round Jupiter
+     */
+    @Override
+    public int minutesOfSteadyMovement() {
+        double angularVelocity = getLinearVelocity() / getHeight();
+        return minutesToCover(360 + getPosition().toRadians(), angularVelocity);
+    }
+
+    /*
+     * Subtracts the angular velocity as many times as there are minutes,
+     * rounding exactly as changePosition would. The minutes around the
+     * wrap are taken one at a time
+     */
+    @Override
+    public void fastForward(int minutes) {
+        double angularVelocity = getLinearVelocity() / getHeight();
+        double newPos = getPosition().toRadians();
+        int remaining = minutes;
+        while (remaining > 0) {
+            int steadyMinutes = Math.min(remaining, minutesToCover(360 + newPos, angularVelocity));
+            if (steadyMinutes > 0) {
+                newPos = addRepeatedly(newPos, -angularVelocity, steadyMinutes);
+                remaining -= steadyMinutes;
+            } else {
+                newPos = nextRadians(newPos, angularVelocity);
+                remaining--;
+            }
+        }
+
+        setPosition(Angle.fromRadians(newPos));
+    }
+
+    /*
+     * Position in radians after one minute, standard satellites
+     * always move clockwise
+     */
+    static double nextRadians(double radians, double angularVelocity) {
+        double newPos = radians - angularVelocity;
+        // % leaves anything smaller than 360 exactly as it is, and is slow
+        if (Math.abs(newPos) >= 360) {
+            newPos %= 360;
+        }
 
-        super.setPosition(Angle.fromRadians(newPos));
+        return newPos;
     }
 }
@@ -17,20 +17,64 @@ public class TeleportingSatellite extends Satellite {
     public void changePosition() {
         Angle currPos = super.getPosition();
         double angularVelocity = super.getLinearVelocity() / super.getHeight();
-        Angle newPos = new Angle();
-
-        if (anticlockwise) {
-            newPos = currPos.add(Angle.fromRadians(angularVelocity));
-        } else {
-            newPos = currPos.subtract(Angle.fromRadians(angularVelocity));
-        }
+        double newPos = nextRadians(currPos.toRadians(), angularVelocity, anticlockwise);
 
         // Set new position depending on newPosition angle
-        if (newPos.compareTo(MID) == 1) {
+        if (isTeleporting(newPos)) {
             super.setPosition(Angle.fromRadians(0));
             anticlockwise = false;
         } else {
-            super.setPosition(newPos);
+            super.setPosition(Angle.fromRadians(newPos));
+        }
+    }
+
+    /*
+     * Minutes until the satellite passes 180 degrees and teleports, once it
+     * has teleported it moves clockwise forever
+     */
+    @Override
+    public int minutesOfSteadyMovement() {
+        if (!anticlockwise) {
+            return Integer.MAX_VALUE;
+        }
+        double angularVelocity = getLinearVelocity() / getHeight();
+        return minutesToCover(MID.toRadians() - getPosition().toRadians(), angularVelocity);
+    }
+
+    /*
+     * Adds the angular velocity as many times as there are minutes, in
+     * whichever direction it is going, rounding exactly as changePosition would
+     */
+    @Override
+    public void fastForward(int minutes) {
+        double angularVelocity = getLinearVelocity() / getHeight();
+        double delta = anticlockwise ? angularVelocity : -angularVelocity;
+
+        setPosition(Angle.fromRadians(addRepeatedly(getPosition().toRadians(), delta, minutes)));
+    }
+
+    public boolean isAnticlockwise() {
+        return anticlockwise;
+    }
+
+    public void setAnticlockwise(boolean anticlockwise) {
+        this.anticlockwise = anticlockwise;
+    }
+
+    /*
+     * Position in radians after one minute, before any teleport is applied
+     */
+    static double nextRadians(double radians, double angularVelocity, boolean anticlockwise) {
+        if (anticlockwise) {
+            return radians + angularVelocity;
         }
+        return radians - angularVelocity;
+    }
+
+    /*
+     * Once past 180 degrees the satellite teleports back to 0
+     */
+    static boolean isTeleporting(double radians) {
+        return radians > MID.toRadians();
     }
 }
@@ -0,0 +1,120 @@
+package unsw.blackout;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps every in progress file transfer in a queue ordered by the minute it
+ * completes, so each tick only touches the transfers finishing that minute
+ * rather than every file on every entity.
+ */
+public class TransferScheduler {
+    private long currentMinute = 0;
+    private long nextSequence = 0;
+    private PriorityQueue<ScheduledTransfer> queue = new PriorityQueue<ScheduledTransfer>();
+
+    private static final class ScheduledTransfer implements Comparable<ScheduledTransfer> {
+        private final long completionMinute;
+        // Breaks ties so transfers finishing in the same minute complete in the order they were sent
+        private final long sequence;
+        private final File file;
+        private final Entity receiver;
+
+        private ScheduledTransfer(long completionMinute, long sequence, File file, Entity receiver) {
+            this.completionMinute = completionMinute;
+            this.sequence = sequence;
+            this.file = file;
+            this.receiver = receiver;
+        }
+
+        @Override
+        public int compareTo(ScheduledTransfer other) {
+            int byMinute = Long.compare(completionMinute, other.completionMinute);
+            return byMinute != 0 ? byMinute : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public TransferScheduler() {
+    }
+
+    /*
+     * Creates a scheduler that starts at the given minute, used when restoring
+     * a snapshot
+     * @params currentMinute
+     */
+    TransferScheduler(long currentMinute) {
+        this.currentMinute = currentMinute;
+    }
+
+    public long getCurrentMinute() {
+        return currentMinute;
+    }
+
+    /*
+     * Method to schedule a file that has just started transferring to the
+     * receiver, it completes once its mins required have passed.
+     * Transfers needing no minutes (empty files) are never counted down
+     * to completion so they are not scheduled
+     * @params file, receiver
+     */
+    public void schedule(File file, Entity receiver) {
+        if (file.getMinsRequired() <= 0) {
+            return;
+        }
+        queue.add(new ScheduledTransfer(currentMinute + file.getMinsRequired(), nextSequence++, file, receiver));
+    }
+
+    /*
+     * Method to schedule a transfer that completes at the given minute,
+     * used when restoring transfers that were already in progress
+     * @params file, receiver, completionMinute
+     */
+    void scheduleAt(File file, Entity receiver, long completionMinute) {
+        queue.add(new ScheduledTransfer(completionMinute, nextSequence++, file, receiver));
+    }
+
+    /*
+     * Method to visit every scheduled transfer in the order they will complete
+     * @params action, given each file and its receiver
+     */
+    void forEachScheduled(BiConsumer<File, Entity> action) {
+        ScheduledTransfer[] scheduled = queue.toArray(new ScheduledTransfer[0]);
+        Arrays.sort(scheduled);
+        for (ScheduledTransfer transfer : scheduled) {
+            action.accept(transfer.file, transfer.receiver);
+        }
+    }
+
+    /*
+     * Method to move forward one minute and complete every transfer due by then
+     */
+    public void advance() {
+        currentMinute++;
+        while (!queue.isEmpty() && queue.peek().completionMinute <= currentMinute) {
+            ScheduledTransfer transfer = queue.poll();
+            transfer.file.completeTransfer();
+            transfer.receiver.transferCompleted(transfer.file);
+        }
+    }
+
+    /*
+     * Method to move forward a number of minutes without completing anything,
+     * only valid for fewer minutes than minutesUntilNextCompletion()
+     * @params minutes
+     */
+    public void skip(int minutes) {
+        currentMinute += minutes;
+    }
+
+    /*
+     * Method to get how many minutes until the next transfer completes
+     * @returns minutes, Integer.MAX_VALUE if nothing is transferring
+     */
+    public int minutesUntilNextCompletion() {
+        if (queue.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(queue.peek().completionMinute - currentMinute, Integer.MAX_VALUE);
+    }
+}
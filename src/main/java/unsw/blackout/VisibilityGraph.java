@@ -0,0 +1,355 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+import unsw.utils.MathsHelper;
+
+/**
+ * Keeps which entities each entity can reach directly from one minute to the
+ * next, so a tick doesn't throw away every pairwise range check.
+ *
+ * Satellites move at most their linear velocity each minute, so the distance
+ * between two entities changes by at most the sum of their speeds and the
+ * angle between them by at most the sum of their angular speeds. Each pair is
+ * only checked again once enough minutes have passed that it could have
+ * crossed its range or the horizon (where Jupiter starts to block the line
+ * between them, an angle of acos(R / h1) + acos(R / h2) apart).
+ *
+ * Each entity's candidates are found with the spatial index out to its range
+ * plus however far anything could close in over a few minutes, and are only
+ * looked up again after those minutes.
+ *
+ * Teleporting satellites jump rather than move, and so does a standard
+ * satellite once its angle reaches 360 radians and wraps back round, so pairs
+ * with one in them are never trusted past the minute it could next jump. Once
+ * it has actually jumped, every entity it may have jumped near looks for
+ * candidates again.
+ *
+ * The graph is worked out lazily per entity the first time it is asked for
+ * and must be reset whenever an entity is added or removed.
+ */
+class VisibilityGraph {
+    // Minutes candidates are looked ahead for, wider lists are refreshed less often
+    private static final int SKIN_MINUTES = 8;
+    // Kept clear of every boundary so rounding can't put a pair on the wrong side
+    private static final double DISTANCE_SLACK = 1;
+    private static final double ANGLE_SLACK = 1e-6;
+
+    /**
+     * Finds every entity that could be within the given range of an entity,
+     * satellites first then devices, each in the order they were created.
+     */
+    interface Candidates {
+        List<Entity> near(Entity entity, double range);
+    }
+
+    private static final class Link {
+        private final Entity target;
+        // Where the target was created, links are kept in this order
+        private final int order;
+        // Fastest the distance and the angle between the pair can change each minute
+        private final double closingSpeed;
+        private final double angularSpeed;
+        private final double horizon;
+        private boolean inRange;
+        // Last minute inRange is known to still hold for
+        private long validUntil;
+
+        private Link(Entity source, Entity target, int order) {
+            this.target = target;
+            this.order = order;
+            this.closingSpeed = closingSpeed(source, target);
+            this.angularSpeed = angularSpeed(source, target);
+            this.horizon = horizon(source, target);
+        }
+    }
+
+    private static final class Node {
+        private List<Link> links;
+        private double reach;
+        // Last minute nothing outside the links can have come into range for
+        private long candidatesUntil;
+    }
+
+    private static final class Teleport implements Comparable<Teleport> {
+        private final Satellite satellite;
+        // Last minute the satellite can't have jumped by
+        private final long steadyUntil;
+        // Where it was when it started being watched
+        private final double radians;
+
+        private Teleport(Satellite satellite, long steadyUntil) {
+            this.satellite = satellite;
+            this.steadyUntil = steadyUntil;
+            this.radians = satellite.getPosition().toRadians();
+        }
+
+        @Override
+        public int compareTo(Teleport other) {
+            return Long.compare(steadyUntil, other.steadyUntil);
+        }
+    }
+
+    private final Candidates candidates;
+    private final Supplier<EntityRegistry> registry;
+    private final Map<Entity, Node> nodes = new IdentityHashMap<Entity, Node>();
+    // Satellites then devices, each in the order they were created
+    private final Map<Entity, Integer> order = new IdentityHashMap<Entity, Integer>();
+    // Satellites yet to jump, by when they next could
+    private final PriorityQueue<Teleport> teleports = new PriorityQueue<Teleport>();
+    private final Map<Entity, Long> steadyUntil = new IdentityHashMap<Entity, Long>();
+    private boolean started = false;
+    private double maxSpeed;
+
+    VisibilityGraph(Candidates candidates, Supplier<EntityRegistry> registry) {
+        this.candidates = candidates;
+        this.registry = registry;
+    }
+
+    /*
+     * Method to forget everything, for when entities are added or removed
+     */
+    public void reset() {
+        nodes.clear();
+        order.clear();
+        teleports.clear();
+        steadyUntil.clear();
+        started = false;
+    }
+
+    /*
+     * Method to get the entities directly reachable from an entity, checking
+     * only the pairs that could have changed since they were last checked
+     * @params source, currentMinute
+     * @returns ids in the same order as a full check would give
+     */
+    public List<String> neighbours(Entity source, long currentMinute) {
+        if (!started) {
+            start(currentMinute);
+        }
+        handleTeleports(currentMinute);
+
+        Node node = nodes.computeIfAbsent(source, entity -> new Node());
+        if (node.links == null || currentMinute > node.candidatesUntil) {
+            findCandidates(source, node, currentMinute);
+        }
+
+        List<String> neighbours = new ArrayList<String>();
+        for (Link link : node.links) {
+            if (currentMinute > link.validUntil) {
+                check(source, link, currentMinute);
+            }
+            if (link.inRange) {
+                neighbours.add(link.target.getId());
+            }
+        }
+        return neighbours;
+    }
+
+    private void start(long currentMinute) {
+        maxSpeed = 0;
+        for (Satellite satellite : registry.get().getSatellites()) {
+            order.put(satellite, order.size());
+            maxSpeed = Math.max(maxSpeed, speedOf(satellite));
+            watchTeleport(satellite, currentMinute);
+        }
+        for (Device device : registry.get().getDevices()) {
+            order.put(device, order.size());
+        }
+        started = true;
+    }
+
+    /*
+     * Keeps track of when a satellite could next teleport or wrap, if it ever will
+     */
+    private void watchTeleport(Satellite satellite, long currentMinute) {
+        int steadyMinutes = satellite.minutesOfSteadyMovement();
+        if (steadyMinutes == Integer.MAX_VALUE) {
+            steadyUntil.remove(satellite);
+            return;
+        }
+        teleports.add(new Teleport(satellite, currentMinute + steadyMinutes));
+        steadyUntil.put(satellite, currentMinute + steadyMinutes);
+    }
+
+    private void handleTeleports(long currentMinute) {
+        while (!teleports.isEmpty() && teleports.peek().steadyUntil < currentMinute) {
+            Teleport watched = teleports.remove();
+            Satellite satellite = watched.satellite;
+            boolean teleported = hasJumped(satellite, watched.radians);
+            watchTeleport(satellite, currentMinute);
+            if (!teleported) {
+                continue;
+            }
+
+            // Links to it were never trusted past now, it only has to join anyone it jumped near
+            for (Map.Entry<Entity, Node> entry : nodes.entrySet()) {
+                Entity source = entry.getKey();
+                Node node = entry.getValue();
+                if (source == satellite) {
+                    node.candidatesUntil = Math.min(node.candidatesUntil, currentMinute - 1);
+                } else if (node.links != null && distance(source, satellite) <= node.reach) {
+                    addLink(source, node, satellite, currentMinute);
+                }
+            }
+        }
+    }
+
+    /*
+     * Whether a satellite has jumped since it was at the given angle, standard
+     * satellites only ever go clockwise unless their angle wraps
+     */
+    private static boolean hasJumped(Satellite satellite, double radians) {
+        if (satellite instanceof TeleportingSatellite) {
+            return !((TeleportingSatellite) satellite).isAnticlockwise();
+        }
+        return satellite.getPosition().toRadians() > radians;
+    }
+
+    /*
+     * Adds a candidate to a node's links where it belongs in the order,
+     * unless it is already there
+     */
+    private void addLink(Entity source, Node node, Entity target, long currentMinute) {
+        int targetOrder = order.get(target);
+        int low = 0;
+        int high = node.links.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (node.links.get(middle).order < targetOrder) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low < node.links.size() && node.links.get(low).target == target) {
+            return;
+        }
+
+        Link link = new Link(source, target, targetOrder);
+        check(source, link, currentMinute);
+        node.links.add(low, link);
+    }
+
+    /*
+     * Looks up the node's candidates again, links it already had keep what
+     * is known about them so only new candidates are checked
+     */
+    private void findCandidates(Entity source, Node node, long currentMinute) {
+        List<Link> previous = node.links == null ? new ArrayList<Link>() : node.links;
+        node.reach = source.getRange() + SKIN_MINUTES * (speedOf(source) + maxSpeed);
+        node.links = new ArrayList<Link>();
+
+        // Both are in creation order so they can be merged in one pass
+        int kept = 0;
+        for (Entity candidate : candidates.near(source, node.reach)) {
+            if (candidate == source) {
+                continue;
+            }
+            int candidateOrder = order.get(candidate);
+            while (kept < previous.size() && previous.get(kept).order < candidateOrder) {
+                kept++;
+            }
+            if (kept < previous.size() && previous.get(kept).target == candidate) {
+                node.links.add(previous.get(kept));
+            } else {
+                Link link = new Link(source, candidate, candidateOrder);
+                check(source, link, currentMinute);
+                node.links.add(link);
+            }
+        }
+        node.candidatesUntil = currentMinute + SKIN_MINUTES;
+    }
+
+    /*
+     * Checks a pair exactly and works out how long the answer must hold for
+     */
+    private void check(Entity source, Link link, long currentMinute) {
+        Entity target = link.target;
+        link.inRange = source.canReachDirectly(target);
+
+        double minutes = minutesUnchanged(source, target, link.closingSpeed, link.angularSpeed, link.horizon);
+        long validUntil = currentMinute + (long) Math.min(minutes, Integer.MAX_VALUE);
+        validUntil = Math.min(validUntil, steadyUntil.getOrDefault(source, Long.MAX_VALUE));
+        link.validUntil = Math.min(validUntil, steadyUntil.getOrDefault(target, Long.MAX_VALUE));
+    }
+
+    /*
+     * Whole minutes source.canReachDirectly(target) can't change its answer
+     * for, as long as neither of them jumps. The speeds and horizon are
+     * those of the pair, as worked out by closingSpeed, angularSpeed and horizon
+     * @params source, target, closingSpeed, angularSpeed, horizon
+     * @returns minutes, at least 0 and infinite if neither moves
+     */
+    static double minutesUnchanged(Entity source, Entity target, double closingSpeed, double angularSpeed,
+            double horizon) {
+        double rangeGap = source.getRange() - distance(source, target);
+        double minutes = minutesToCross(Math.abs(rangeGap), DISTANCE_SLACK, closingSpeed);
+
+        // Out of range stays out until it comes in range, whatever the horizon does
+        if (rangeGap >= 0) {
+            double cross = source.getX() * target.getY() - source.getY() * target.getX();
+            double dot = source.getX() * target.getX() + source.getY() * target.getY();
+            double separation = Math.atan2(Math.abs(cross), dot);
+            minutes = Math.min(minutes, minutesToCross(Math.abs(separation - horizon), ANGLE_SLACK, angularSpeed));
+        }
+        return Math.max(0, minutes);
+    }
+
+    /*
+     * Fastest the distance between two entities can change each minute
+     */
+    static double closingSpeed(Entity a, Entity b) {
+        return speedOf(a) + speedOf(b);
+    }
+
+    /*
+     * Fastest the angle between two entities can change each minute
+     */
+    static double angularSpeed(Entity a, Entity b) {
+        return speedOf(a) / a.getHeight() + speedOf(b) / b.getHeight();
+    }
+
+    /*
+     * Angle two entities can be apart before Jupiter blocks the line between them
+     */
+    static double horizon(Entity a, Entity b) {
+        return horizonOf(a) + horizonOf(b);
+    }
+
+    /*
+     * Whole minutes that can pass at the given rate while staying more than
+     * slack short of closing the gap
+     */
+    private static double minutesToCross(double gap, double slack, double rate) {
+        if (rate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.floor((gap - slack) / rate);
+    }
+
+    private static double distance(Entity a, Entity b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static double speedOf(Entity entity) {
+        if (entity instanceof Satellite) {
+            return Math.abs(((Satellite) entity).getLinearVelocity());
+        }
+        return 0;
+    }
+
+    /*
+     * Angle from directly above an entity to where Jupiter's surface meets its horizon
+     */
+    private static double horizonOf(Entity entity) {
+        return Math.acos(Math.min(1, MathsHelper.RADIUS_OF_JUPITER / entity.getHeight()));
+    }
+}
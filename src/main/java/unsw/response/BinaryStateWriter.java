@@ -0,0 +1,108 @@
+package unsw.response;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileInfoResponse;
+
+/**
+ * Writes simulation state as fixed layout binary records, an alternative to
+ * JSON for clients that send Accept: application/x-blackout-state.
+ *
+ * Everything is big endian, as written by DataOutputStream:
+ *
+ * <pre>
+ * int    magic            0x424C4B31 ("BLK1")
+ * int    stringCount      then stringCount strings, each as writeUTF
+ * int    stepCount
+ * each step:
+ *   int    entityCount
+ *   each entity:
+ *     int    id           index into the strings
+ *     double radians
+ *     double height
+ *     byte   type         index into TYPES, -1 if unknown
+ *     int    fileCount
+ *     each file:
+ *       int  name         index into the strings
+ *       int  received     bytes of the file that have arrived
+ *       int  size
+ *       byte complete     1 if the transfer is complete
+ * </pre>
+ *
+ * File content isn't included, only how far each transfer has got.
+ */
+public class BinaryStateWriter {
+    public static final String CONTENT_TYPE = "application/x-blackout-state";
+    public static final int MAGIC = 0x424C4B31;
+    public static final List<String> TYPES = Arrays.asList("StandardSatellite", "RelaySatellite",
+            "TeleportingSatellite", "HandheldDevice", "LaptopDevice", "DesktopDevice");
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    public BinaryStateWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Write the header, the string table is built from the given entities so
+     * it must cover every id and file name in the steps that follow.
+     */
+    public void writeHeader(Collection<EntityInfoResponse> entities, int steps) throws IOException {
+        for (EntityInfoResponse entity : entities) {
+            strings.putIfAbsent(entity.getDeviceId(), strings.size());
+            for (String fileName : entity.getFiles().keySet()) {
+                strings.putIfAbsent(fileName, strings.size());
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            out.writeUTF(string);
+        }
+        out.writeInt(steps);
+    }
+
+    /**
+     * Write every entity's state for one step.
+     */
+    public void writeStep(Collection<EntityInfoResponse> entities) throws IOException {
+        out.writeInt(entities.size());
+        for (EntityInfoResponse entity : entities) {
+            out.writeInt(indexOf(entity.getDeviceId()));
+            out.writeDouble(entity.getPosition().toRadians());
+            out.writeDouble(entity.getHeight());
+            out.writeByte(TYPES.indexOf(entity.getType()));
+
+            out.writeInt(entity.getFiles().size());
+            for (FileInfoResponse file : entity.getFiles().values()) {
+                out.writeInt(indexOf(file.getFilename()));
+                out.writeInt(file.getDataView().length());
+                out.writeInt(file.getFileSize());
+                out.writeByte(file.isFileComplete() ? 1 : 0);
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private int indexOf(String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            throw new IllegalStateException(string + " is not in the string table");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,74 @@
+package unsw.response.models;
+
+import java.util.Objects;
+
+/**
+ * A stretch of minutes one entity is predicted to be in direct contact with
+ * another, both ends inclusive and counted in simulation minutes.
+ *
+ * A window already open when the prediction was made may have started
+ * earlier, and one still open at the end of the horizon may last longer.
+ */
+public final class ContactWindowResponse {
+    private final long start;
+    private final long end;
+    private final long duration;
+    private final boolean openAtStart;
+    private final boolean openAtEnd;
+
+    public ContactWindowResponse(long start, long end, boolean openAtStart, boolean openAtEnd) {
+        this.start = start;
+        this.end = end;
+        this.duration = end - start + 1;
+        this.openAtStart = openAtStart;
+        this.openAtEnd = openAtEnd;
+    }
+
+    public final long getStart() {
+        return start;
+    }
+
+    public final long getEnd() {
+        return end;
+    }
+
+    /**
+     * Number of minutes in contact, at least this many if the window is open at either end.
+     */
+    public final long getDuration() {
+        return duration;
+    }
+
+    public final boolean isOpenAtStart() {
+        return openAtStart;
+    }
+
+    public final boolean isOpenAtEnd() {
+        return openAtEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactWindowResponse [start=" + start + ", end=" + end + ", duration=" + duration
+                + ", openAtStart=" + openAtStart + ", openAtEnd=" + openAtEnd + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end, openAtStart, openAtEnd);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+
+        ContactWindowResponse other = (ContactWindowResponse) obj;
+        return start == other.start && end == other.end && openAtStart == other.openAtStart
+                && openAtEnd == other.openAtEnd;
+    }
+}
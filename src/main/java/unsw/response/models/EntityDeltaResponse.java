@@ -0,0 +1,61 @@
+package unsw.response.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import unsw.utils.Angle;
+
+/**
+ * Represents what changed about an entity between two simulation steps.
+ *
+ * Fields that didn't change are left null so they are left out of the JSON.
+ */
+public final class EntityDeltaResponse {
+    // Only set if the entity moved
+    private final Angle position;
+    // Only the files that were added or progressed
+    private final Map<String, FileInfoResponse> files;
+
+    private EntityDeltaResponse(Angle position, Map<String, FileInfoResponse> files) {
+        this.position = position;
+        this.files = files;
+    }
+
+    /**
+     * Work out what changed between two responses for the same entity.
+     * Returns null if nothing changed.
+     */
+    public static EntityDeltaResponse between(EntityInfoResponse previous, EntityInfoResponse current) {
+        if (previous == current) {
+            return null;
+        }
+        if (previous == null) {
+            return new EntityDeltaResponse(current.getPosition(), current.getFiles());
+        }
+
+        Angle position = null;
+        if (previous.getPosition().compareTo(current.getPosition()) != 0) {
+            position = current.getPosition();
+        }
+
+        Map<String, FileInfoResponse> files = new HashMap<>();
+        for (Map.Entry<String, FileInfoResponse> file : current.getFiles().entrySet()) {
+            if (!file.getValue().equals(previous.getFiles().get(file.getKey()))) {
+                files.put(file.getKey(), file.getValue());
+            }
+        }
+
+        if (position == null && files.isEmpty()) {
+            return null;
+        }
+        return new EntityDeltaResponse(position, files.isEmpty() ? null : files);
+    }
+
+    public final Angle getPosition() {
+        return position;
+    }
+
+    public final Map<String, FileInfoResponse> getFiles() {
+        return files;
+    }
+}
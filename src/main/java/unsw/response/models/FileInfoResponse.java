@@ -22,9 +22,10 @@ public final class FileInfoResponse {
     private final String filename;
 
     /**
-     * The currently transferred data for the file.
+     * The currently transferred data for the file, a view over the file's
+     * content rather than a copy while it is still being transferred.
      */
-    private final String data;
+    private final CharSequence data;
 
     /**
      * The final size for the file.
@@ -36,7 +37,7 @@ public final class FileInfoResponse {
      */
     private final boolean isFileComplete;
 
-    public FileInfoResponse(String filename, String data, int fileSize, boolean isFileComplete) {
+    public FileInfoResponse(String filename, CharSequence data, int fileSize, boolean isFileComplete) {
         this.filename = filename;
         this.data = data;
         this.fileSize = fileSize;
@@ -52,6 +53,13 @@ public final class FileInfoResponse {
     }
 
     public final String getData() {
+        return data.toString();
+    }
+
+    /**
+     * The currently transferred data without copying it.
+     */
+    public final CharSequence getDataView() {
         return data;
     }
 
@@ -67,7 +75,7 @@ public final class FileInfoResponse {
 
     @Override
     public int hashCode() {
-        return Objects.hash(data, fileSize, filename, isFileComplete);
+        return Objects.hash(getData(), fileSize, filename, isFileComplete);
     }
 
     @Override
@@ -80,7 +88,7 @@ public final class FileInfoResponse {
             return false;
 
         FileInfoResponse other = (FileInfoResponse) obj;
-        return Objects.equals(data, other.data) && fileSize == other.fileSize
+        return CharSequence.compare(data, other.data) == 0 && fileSize == other.fileSize
                 && Objects.equals(filename, other.filename) && isFileComplete == other.isFileComplete;
     }
 }
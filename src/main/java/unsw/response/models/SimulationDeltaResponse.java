@@ -0,0 +1,40 @@
+package unsw.response.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the delta format of /api/simulate/, one full keyframe followed
+ * by only what changed in each later step.
+ *
+ * The response is streamed as
+ * { "reconstruction": RECONSTRUCTION, "keyframe": { id: EntityInfoResponse },
+ * "deltas": [ { id: EntityDeltaResponse } ] }
+ */
+public final class SimulationDeltaResponse {
+    /**
+     * How a client rebuilds every step, sent along with the response.
+     */
+    public static final String RECONSTRUCTION = "Step 1 is keyframe. Step k + 1 is step k with deltas[k - 1] applied: "
+            + "for each id in the delta, replace position if present and replace each file listed under files. "
+            + "Entities, fields and files not listed are unchanged from step k.";
+
+    private SimulationDeltaResponse() {
+    }
+
+    /**
+     * Work out what changed for every entity between two steps, entities
+     * that didn't change are left out.
+     */
+    public static Map<String, EntityDeltaResponse> diff(Map<String, EntityInfoResponse> previous,
+            Map<String, EntityInfoResponse> current) {
+        Map<String, EntityDeltaResponse> delta = new HashMap<>();
+        for (Map.Entry<String, EntityInfoResponse> entity : current.entrySet()) {
+            EntityDeltaResponse change = EntityDeltaResponse.between(previous.get(entity.getKey()), entity.getValue());
+            if (change != null) {
+                delta.put(entity.getKey(), change);
+            }
+        }
+        return delta;
+    }
+}
@@ -25,6 +25,14 @@ public final class MathsHelper {
         double otherX = Math.cos(otherAngle.toRadians()) * otherHeight;
 
         double otherY = Math.sin(otherAngle.toRadians()) * otherHeight;
+        return getDistance(satX, satY, otherX, otherY);
+    }
+
+    /**
+     * Determine the distance between two points that have already been
+     * converted to euclidean coordinates.
+     */
+    public static double getDistance(double satX, double satY, double otherX, double otherY) {
         // find length of line between euclidean points
         double length = Math.sqrt((satX - otherX) * (satX - otherX) + (satY - otherY) * (satY - otherY));
         return length;
@@ -37,6 +45,23 @@ public final class MathsHelper {
         return getDistance(satelliteHeight, satelliteAngle, RADIUS_OF_JUPITER, deviceAngle);
     }
 
+    /**
+     * Determine if two points that have already been converted to euclidean
+     * coordinates are within range of each other and visible.
+     *
+     * Points further apart than range are rejected using the squared distance
+     * alone, so the intersection with Jupiter is only solved for pairs that are
+     * close enough to matter.
+     */
+    public static boolean isCommunicable(double satX, double satY, double otherX, double otherY, double range) {
+        double dx = satX - otherX;
+        double dy = satY - otherY;
+        if (dx * dx + dy * dy > range * range) {
+            return false;
+        }
+        return isVisible(satX, satY, otherX, otherY);
+    }
+
     /**
      * Determine if a satellite is visible to a device.
      */
@@ -53,7 +78,15 @@ public final class MathsHelper {
         double satX = Math.cos(satelliteAngle.toRadians()) * satelliteHeight;
         double satY = Math.sin(satelliteAngle.toRadians()) * satelliteHeight;
         double otherX = Math.cos(otherAngle.toRadians()) * otherHeight;
+        double otherY = Math.sin(otherAngle.toRadians()) * otherHeight;
+        return isVisible(satX, satY, otherX, otherY);
+    }
 
+    /**
+     * Determine if two points that have already been converted to euclidean
+     * coordinates can see each other without Jupiter in the way.
+     */
+    public static boolean isVisible(double satX, double satY, double otherX, double otherY) {
         // now is the *fun* part since we have to determine visibility to other
         // satellites this is much more complicated
         // (if it's just to things that always lie on the circle it's just dist <
@@ -93,7 +126,6 @@ public final class MathsHelper {
          *
          */
 
-        double otherY = Math.sin(otherAngle.toRadians()) * otherHeight;
         double ax = satX;
         double ay = satY;
         double bx = otherX;
@@ -0,0 +1,127 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import com.google.gson.Gson;
+
+import unsw.BatchOperation;
+import unsw.blackout.BlackoutController;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class BatchOperationTests {
+    private final Gson gson = new Gson();
+
+    private List<String> applyAll(BlackoutController controller, String json) {
+        List<String> results = new ArrayList<String>();
+        for (BatchOperation operation : gson.fromJson(json, BatchOperation[].class)) {
+            results.add(operation.apply(controller));
+        }
+        return results;
+    }
+
+    @Test
+    public void testOperationsApplyInOrder() {
+        BlackoutController controller = new BlackoutController();
+        List<String> results = applyAll(controller, "["
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite1', 'type': 'StandardSatellite', "
+                + "'height': " + (10000 + RADIUS_OF_JUPITER) + ", 'position': 5.5 },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceA', 'type': 'HandheldDevice', 'position': 5.5 },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceB', 'type': 'LaptopDevice', 'position': 1 },"
+                + "{ 'op': 'addFile', 'deviceId': 'DeviceA', 'fileName': 'FileAlpha', 'content': 'Hey' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'removeDevice', 'deviceId': 'DeviceB' }]");
+
+        assertEquals(Arrays.asList("", "", "", "", "", ""), results);
+        assertEquals(Arrays.asList("Satellite1"), controller.listSatelliteIds());
+        assertEquals(Arrays.asList("DeviceA"), controller.listDeviceIds());
+        assertEquals(1, controller.getInfo("Satellite1").getFiles().size());
+    }
+
+    @Test
+    public void testMissingArgumentsOnlyFailTheirOwnOp() {
+        BlackoutController controller = new BlackoutController();
+        List<String> results = applyAll(controller, "["
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceA', 'type': 'HandheldDevice', 'position': 0 },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceB', 'position': 0 },"
+                + "{ 'op': 'createDevice', 'type': 'HandheldDevice', 'position': 0 },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceB', 'type': 'HandheldDevice' },"
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite1', 'height': 80000, 'position': 0 },"
+                + "{ 'op': 'createSatellite', 'type': 'RelaySatellite', 'height': 80000, 'position': 0 },"
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite1', 'type': 'RelaySatellite', 'position': 0 },"
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite1', 'type': 'RelaySatellite', 'height': 80000 },"
+                + "{ 'op': 'removeDevice' },"
+                + "{ 'op': 'removeSatellite' },"
+                + "{ 'op': 'addFile', 'fileName': 'FileAlpha', 'content': 'Hey' },"
+                + "{ 'op': 'addFile', 'deviceId': 'DeviceA', 'content': 'Hey' },"
+                + "{ 'op': 'addFile', 'deviceId': 'DeviceA', 'fileName': 'FileAlpha' },"
+                + "{ 'op': 'sendFile', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'fromId': 'DeviceA' },"
+                + "{ 'deviceId': 'DeviceA' },"
+                + "{ 'op': 'launchDevice', 'deviceId': 'DeviceA' },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceC', 'type': 'DesktopDevice', 'position': 1 }]");
+
+        assertEquals(Arrays.asList("",
+                "IllegalArgumentException:Missing type",
+                "IllegalArgumentException:Missing deviceId",
+                "IllegalArgumentException:Missing position",
+                "IllegalArgumentException:Missing type",
+                "IllegalArgumentException:Missing satelliteId",
+                "IllegalArgumentException:Missing height",
+                "IllegalArgumentException:Missing position",
+                "IllegalArgumentException:Missing deviceId",
+                "IllegalArgumentException:Missing satelliteId",
+                "IllegalArgumentException:Missing deviceId",
+                "IllegalArgumentException:Missing fileName",
+                "IllegalArgumentException:Missing content",
+                "IllegalArgumentException:Missing fileName",
+                "IllegalArgumentException:Missing fromId",
+                "IllegalArgumentException:Missing toId",
+                "IllegalArgumentException:Unknown op null",
+                "IllegalArgumentException:Unknown op launchDevice",
+                ""), results);
+
+        // Nothing a failed op names was applied, the ops around them were
+        assertEquals(Arrays.asList("DeviceA", "DeviceC"), controller.listDeviceIds());
+        assertEquals(new ArrayList<String>(), controller.listSatelliteIds());
+        assertEquals(0, controller.getInfo("DeviceA").getFiles().size());
+    }
+
+    @Test
+    public void testTransferExceptionsNamedInResults() {
+        BlackoutController controller = new BlackoutController();
+        List<String> results = applyAll(controller, "["
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite1', 'type': 'StandardSatellite', "
+                + "'height': " + (10000 + RADIUS_OF_JUPITER) + ", 'position': 5.5 },"
+                + "{ 'op': 'createSatellite', 'satelliteId': 'Satellite2', 'type': 'StandardSatellite', "
+                + "'height': " + (10000 + RADIUS_OF_JUPITER) + ", 'position': 5.5 },"
+                + "{ 'op': 'createDevice', 'deviceId': 'DeviceA', 'type': 'HandheldDevice', 'position': 5.5 },"
+                + "{ 'op': 'addFile', 'deviceId': 'DeviceA', 'fileName': 'FileAlpha', 'content': 'Hey' },"
+                + "{ 'op': 'addFile', 'deviceId': 'DeviceA', 'fileName': 'FileBig', 'content': '"
+                + "x".repeat(81) + "' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileMissing', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileBig', 'fromId': 'DeviceA', 'toId': 'Satellite1' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileBig', 'fromId': 'DeviceA', 'toId': 'Satellite2' },"
+                + "{ 'op': 'sendFile', 'fileName': 'FileAlpha', 'fromId': 'Satellite1', 'toId': 'DeviceA' }]");
+
+        // Standard satellites receive one file at a time and store at most 80 bytes
+        assertEquals(Arrays.asList("", "", "", "", "",
+                "VirtualFileNotFoundException:FileMissing",
+                "",
+                "VirtualFileAlreadyExistsException:FileAlpha",
+                "VirtualFileNoBandwidthException:Satellite1",
+                "VirtualFileNoStorageSpaceException:Max Storage Reached",
+                "VirtualFileNotFoundException:FileAlpha"), results);
+    }
+}
@@ -0,0 +1,75 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.BinaryStateWriter;
+import unsw.response.models.EntityInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class BinaryStateWriterTests {
+    @Test
+    public void testRecordsDecode() throws IOException {
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+        controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+        controller.addFileToDevice("DeviceA", "FileAlpha", "Hello");
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceA", "Satellite1"));
+        controller.simulate();
+
+        List<EntityInfoResponse> entities = Arrays.asList(controller.getInfo("Satellite1"),
+                controller.getInfo("DeviceA"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryStateWriter writer = new BinaryStateWriter(bytes);
+        writer.writeHeader(entities, 1);
+        writer.writeStep(entities);
+        writer.flush();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(BinaryStateWriter.MAGIC, in.readInt());
+        List<String> strings = new ArrayList<String>();
+        for (int i = in.readInt(); i > 0; i--) {
+            strings.add(in.readUTF());
+        }
+        assertEquals(Arrays.asList("Satellite1", "FileAlpha", "DeviceA"), strings);
+        assertEquals(1, in.readInt());
+        assertEquals(2, in.readInt());
+
+        // The satellite has received one byte of the file after a minute
+        assertEquals("Satellite1", strings.get(in.readInt()));
+        assertEquals(controller.getInfo("Satellite1").getPosition().toRadians(), in.readDouble());
+        assertEquals(1000 + RADIUS_OF_JUPITER, in.readDouble());
+        assertEquals(BinaryStateWriter.TYPES.indexOf("StandardSatellite"), in.readByte());
+        assertEquals(1, in.readInt());
+        assertEquals("FileAlpha", strings.get(in.readInt()));
+        assertEquals(1, in.readInt());
+        assertEquals(5, in.readInt());
+        assertEquals(0, in.readByte());
+
+        assertEquals("DeviceA", strings.get(in.readInt()));
+        in.readDouble();
+        in.readDouble();
+        assertEquals(BinaryStateWriter.TYPES.indexOf("HandheldDevice"), in.readByte());
+        assertEquals(1, in.readInt());
+        assertEquals("FileAlpha", strings.get(in.readInt()));
+        assertEquals(5, in.readInt());
+        assertEquals(5, in.readInt());
+        assertEquals(1, in.readByte());
+        assertEquals(-1, in.read());
+    }
+}
@@ -0,0 +1,216 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.ContactWindowResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class ContactPredictionTests {
+    private static final String[] SATELLITE_TYPES = { "StandardSatellite", "RelaySatellite",
+        "TeleportingSatellite" };
+    private static final String[] DEVICE_TYPES = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+    private static final int HORIZON = 600;
+
+    @Test
+    public void testPredictionMatchesSimulation() {
+        Random random = new Random(25);
+        BlackoutController controller = new BlackoutController();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 9; i++) {
+            String id = "Satellite" + i;
+            controller.createSatellite(id, SATELLITE_TYPES[i % 3], RADIUS_OF_JUPITER + 1000 + random.nextInt(80000),
+                    Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+        for (int i = 0; i < 6; i++) {
+            String id = "Device" + i;
+            controller.createDevice(id, DEVICE_TYPES[i % 3], Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+        // Start part way through so windows are in absolute minutes
+        controller.simulate(37);
+
+        List<EntityInfoResponse> before = infoOf(controller, ids);
+        List<List<ContactWindowResponse>> predicted = new ArrayList<List<ContactWindowResponse>>();
+        for (String from : ids) {
+            for (String to : ids) {
+                predicted.add(controller.predictContactWindows(from, to, HORIZON));
+            }
+        }
+        assertEquals(before, infoOf(controller, ids));
+
+        // Whether each pair is in contact right now, minute by minute
+        List<List<Boolean>> actual = new ArrayList<List<Boolean>>();
+        for (int pair = 0; pair < ids.size() * ids.size(); pair++) {
+            actual.add(new ArrayList<Boolean>());
+        }
+        for (int minute = 0; minute <= HORIZON; minute++) {
+            int pair = 0;
+            for (String from : ids) {
+                for (String to : ids) {
+                    actual.get(pair++).add(!controller.predictContactWindows(from, to, 0).isEmpty());
+                }
+            }
+            controller.simulate();
+        }
+
+        int windows = 0;
+        int pair = 0;
+        for (String from : ids) {
+            for (String to : ids) {
+                assertEquals(windowsOf(actual.get(pair), 37), predicted.get(pair), from + " to " + to);
+                windows += predicted.get(pair).size();
+                pair++;
+            }
+        }
+        assertTrue(windows > 20);
+    }
+
+    @Test
+    public void testRelaysStartingOnWindowEdges() {
+        BlackoutController controller = new BlackoutController();
+        List<String> relays = new ArrayList<String>();
+        for (int height : new int[] { 8100, 37100, 44100, 45100, 73100 }) {
+            for (int position : new int[] { 140, 190 }) {
+                String id = "Relay" + position + "at" + height;
+                controller.createSatellite(id, "RelaySatellite", height + RADIUS_OF_JUPITER,
+                        Angle.fromDegrees(position));
+                relays.add(id);
+            }
+        }
+        List<String> targets = new ArrayList<String>();
+        for (int position = 130; position <= 200; position += 10) {
+            String id = "Device" + position;
+            controller.createDevice(id, DEVICE_TYPES[position % 3], Angle.fromDegrees(position));
+            targets.add(id);
+        }
+
+        int horizon = 2000;
+        List<List<ContactWindowResponse>> predicted = new ArrayList<List<ContactWindowResponse>>();
+        for (String relay : relays) {
+            for (String target : targets) {
+                predicted.add(controller.predictContactWindows(relay, target, horizon));
+            }
+        }
+
+        List<List<Boolean>> actual = new ArrayList<List<Boolean>>();
+        for (int pair = 0; pair < relays.size() * targets.size(); pair++) {
+            actual.add(new ArrayList<Boolean>());
+        }
+        for (int minute = 0; minute <= horizon; minute++) {
+            int pair = 0;
+            for (String relay : relays) {
+                for (String target : targets) {
+                    actual.get(pair++).add(!controller.predictContactWindows(relay, target, 0).isEmpty());
+                }
+            }
+            controller.simulate();
+        }
+
+        int pair = 0;
+        for (String relay : relays) {
+            for (String target : targets) {
+                assertEquals(windowsOf(actual.get(pair), 0), predicted.get(pair), relay + " to " + target);
+                pair++;
+            }
+        }
+    }
+
+    @Test
+    public void testStandardSatellitesWrapping() {
+        Random random = new Random(10167);
+        BlackoutController controller = new BlackoutController();
+        List<String> satellites = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            String id = "Satellite" + i;
+            controller.createSatellite(id, "StandardSatellite", RADIUS_OF_JUPITER + 1000 + random.nextInt(3000),
+                    Angle.fromDegrees(random.nextInt(360)));
+            satellites.add(id);
+        }
+        List<String> devices = new ArrayList<String>();
+        for (int i = 0; i < 8; i++) {
+            String id = "Device" + i;
+            controller.createDevice(id, "HandheldDevice", Angle.fromDegrees(random.nextInt(360)));
+            devices.add(id);
+        }
+
+        // Low orbits reach 360 radians after about 10000 minutes and wrap round with % 360
+        int horizon = 11000;
+        List<List<ContactWindowResponse>> predicted = new ArrayList<List<ContactWindowResponse>>();
+        for (String satellite : satellites) {
+            for (String device : devices) {
+                predicted.add(controller.predictContactWindows(device, satellite, horizon));
+            }
+        }
+
+        List<List<Boolean>> actual = new ArrayList<List<Boolean>>();
+        for (int pair = 0; pair < satellites.size() * devices.size(); pair++) {
+            actual.add(new ArrayList<Boolean>());
+        }
+        for (int minute = 0; minute <= horizon; minute++) {
+            int pair = 0;
+            for (String satellite : satellites) {
+                for (String device : devices) {
+                    actual.get(pair++).add(!controller.predictContactWindows(device, satellite, 0).isEmpty());
+                }
+            }
+            controller.simulate();
+        }
+
+        int pair = 0;
+        for (String satellite : satellites) {
+            for (String device : devices) {
+                assertEquals(windowsOf(actual.get(pair), 0), predicted.get(pair), device + " to " + satellite);
+                pair++;
+            }
+        }
+    }
+
+    @Test
+    public void testMissingEntities() {
+        BlackoutController controller = new BlackoutController();
+        controller.createDevice("Device", "HandheldDevice", Angle.fromDegrees(0));
+        assertEquals(new ArrayList<ContactWindowResponse>(),
+                controller.predictContactWindows("Device", "Satellite", HORIZON));
+        assertEquals(new ArrayList<ContactWindowResponse>(),
+                controller.predictContactWindows("Satellite", "Device", HORIZON));
+    }
+
+    private static List<EntityInfoResponse> infoOf(BlackoutController controller, List<String> ids) {
+        List<EntityInfoResponse> info = new ArrayList<EntityInfoResponse>();
+        for (String id : ids) {
+            info.add(controller.getInfo(id));
+        }
+        return info;
+    }
+
+    private static List<ContactWindowResponse> windowsOf(List<Boolean> contact, long start) {
+        List<ContactWindowResponse> windows = new ArrayList<ContactWindowResponse>();
+        int opened = -1;
+        for (int minute = 0; minute < contact.size(); minute++) {
+            if (contact.get(minute) && opened < 0) {
+                opened = minute;
+            } else if (!contact.get(minute) && opened >= 0) {
+                windows.add(new ContactWindowResponse(start + opened, start + minute - 1, opened == 0, false));
+                opened = -1;
+            }
+        }
+        if (opened >= 0) {
+            windows.add(new ContactWindowResponse(start + opened, start + contact.size() - 1, opened == 0, true));
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,133 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.ContinuousSimulation;
+import unsw.ControllerSession;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class ContinuousSimulationTests {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private ControllerSession createSession() throws Exception {
+        ControllerSession session = new ControllerSession();
+        session.write(controller -> {
+            controller.createSatellite("Satellite1", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+                    Angle.fromDegrees(0));
+            controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(0));
+            return null;
+        });
+        return session;
+    }
+
+    @Test
+    public void testSlowReaderGetsOnlyTheLatestFrame() throws Exception {
+        ControllerSession session = createSession();
+        ContinuousSimulation simulation = session.getContinuousSimulation();
+
+        // The reader doesn't ask for anything until several ticks have gone by
+        simulation.join(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        Thread.sleep(500);
+        ContinuousSimulation.Frame frame = simulation.awaitAfter(0, TIMEOUT_MILLIS);
+        assertNotNull(frame);
+        assertTrue(frame.getTick() > 5, "tick " + frame.getTick());
+
+        // Ticks keep going without it, the next read skips straight to the newest
+        Thread.sleep(300);
+        ContinuousSimulation.Frame next = simulation.awaitAfter(frame.getTick(), TIMEOUT_MILLIS);
+        assertTrue(next.getTick() > frame.getTick() + 5, "tick " + next.getTick());
+        simulation.leave(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+
+        // Once stopped the newest frame is the controller as it was left
+        Thread.sleep(200);
+        ContinuousSimulation.Frame last = simulation.awaitAfter(0, TIMEOUT_MILLIS);
+        assertEquals(session.read(controller -> controller.getInfo("Satellite1")),
+                last.getEntities().get("Satellite1"));
+        assertEquals(session.read(controller -> controller.getInfo("DeviceA")), last.getEntities().get("DeviceA"));
+    }
+
+    @Test
+    public void testTickerStopsWhenLastClientLeaves() throws Exception {
+        ContinuousSimulation simulation = createSession().getContinuousSimulation();
+        simulation.join(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        simulation.join(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        assertNotNull(simulation.awaitAfter(0, TIMEOUT_MILLIS));
+
+        // One client is still watching
+        simulation.leave(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        long tick = simulation.awaitAfter(0, TIMEOUT_MILLIS).getTick();
+        assertNotNull(simulation.awaitAfter(tick, TIMEOUT_MILLIS));
+
+        simulation.leave(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        assertEquals(0, simulation.getTicksPerSecond());
+        Thread.sleep(100);
+        tick = simulation.awaitAfter(0, TIMEOUT_MILLIS).getTick();
+        assertNull(simulation.awaitAfter(tick, 300));
+
+        // Joining again carries on from where it stopped
+        simulation.join(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        assertEquals(tick + 1, simulation.awaitAfter(tick, TIMEOUT_MILLIS).getTick());
+        simulation.leave(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+    }
+
+    @Test
+    public void testRunsAtSlowestClampedRate() throws Exception {
+        assertEquals(ContinuousSimulation.MAX_TICKS_PER_SECOND, ContinuousSimulation.clampRate(1000000));
+        assertEquals(ContinuousSimulation.MIN_TICKS_PER_SECOND, ContinuousSimulation.clampRate(0));
+        assertEquals(ContinuousSimulation.MIN_TICKS_PER_SECOND, ContinuousSimulation.clampRate(-5));
+        assertEquals(ContinuousSimulation.DEFAULT_TICKS_PER_SECOND, ContinuousSimulation.clampRate(Double.NaN));
+        assertEquals(12.5, ContinuousSimulation.clampRate(12.5));
+
+        // A fast client joining doesn't speed up a slower one, leaving hands the rate back
+        ContinuousSimulation simulation = createSession().getContinuousSimulation();
+        assertEquals(0, simulation.getTicksPerSecond());
+        simulation.join(5);
+        simulation.join(1000);
+        assertEquals(5, simulation.getTicksPerSecond());
+        simulation.join(2);
+        assertEquals(2, simulation.getTicksPerSecond());
+        simulation.leave(2);
+        assertEquals(5, simulation.getTicksPerSecond());
+        simulation.leave(5);
+        assertEquals(ContinuousSimulation.MAX_TICKS_PER_SECOND, simulation.getTicksPerSecond());
+        simulation.leave(1000);
+        assertEquals(0, simulation.getTicksPerSecond());
+    }
+
+    @Test
+    public void testEveryWaitingClientIsWoken() throws Exception {
+        ContinuousSimulation simulation = createSession().getContinuousSimulation();
+        simulation.join(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        long tick = simulation.awaitAfter(0, TIMEOUT_MILLIS).getTick();
+
+        // Every client waits for the same next frame, one tick has to wake all of them
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            List<Future<ContinuousSimulation.Frame>> frames = new ArrayList<Future<ContinuousSimulation.Frame>>();
+            for (int i = 0; i < 200; i++) {
+                frames.add(pool.submit(() -> simulation.awaitAfter(tick, TIMEOUT_MILLIS)));
+            }
+            for (Future<ContinuousSimulation.Frame> frame : frames) {
+                assertTrue(frame.get().getTick() > tick);
+            }
+        } finally {
+            pool.shutdown();
+            simulation.leave(ContinuousSimulation.MAX_TICKS_PER_SECOND);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.MutationJournal;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class MutationJournalTests {
+    private static final List<String> IDS = Arrays.asList("Standard", "Teleporting", "DeviceA", "DeviceB");
+
+    private void runScenario(BlackoutController controller) {
+        controller.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+        controller.createSatellite("Teleporting", "TeleportingSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(170));
+        controller.createSatellite("Removed", "RelaySatellite", 100 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+        controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+        controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(175));
+        controller.addFileToDevice("DeviceA", "FileAlpha", "Sent to the standard satellite");
+        controller.addFileToDevice("DeviceB", "FileBeta", "Sent to the teleporting satellite".repeat(4));
+
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceA", "Standard"));
+        controller.simulate();
+        controller.removeSatellite("Removed");
+        assertDoesNotThrow(() -> controller.sendFile("FileBeta", "DeviceB", "Teleporting"));
+        controller.simulate(7);
+    }
+
+    @Test
+    public void testReplayMatchesOriginal(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("session.journal");
+        BlackoutController original = new BlackoutController();
+        try (MutationJournal journal = new MutationJournal(path, 10)) {
+            original.setJournal(journal);
+            runScenario(original);
+            original.setJournal(null);
+        }
+
+        BlackoutController replayed = new BlackoutController();
+        assertEquals(12, MutationJournal.replay(path, replayed));
+        assertEquals(original.listSatelliteIds(), replayed.listSatelliteIds());
+        assertEquals(original.listDeviceIds(), replayed.listDeviceIds());
+        for (String id : IDS) {
+            assertEquals(original.getInfo(id), replayed.getInfo(id));
+        }
+        assertNull(replayed.getSatellite("Removed"));
+
+        // Transfers replayed as in progress carry on the same way
+        original.simulate(30);
+        replayed.simulate(30);
+        for (String id : IDS) {
+            assertEquals(original.getInfo(id), replayed.getInfo(id));
+        }
+        assertTrue(replayed.getInfo("Teleporting").getFiles().get("FileBeta").isFileComplete());
+    }
+
+    @Test
+    public void testReplaySendsAfterRestore(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("session.journal");
+        Path snapshot = directory.resolve("constellation.snapshot");
+        BlackoutController original = new BlackoutController();
+        try (MutationJournal journal = new MutationJournal(path, 10)) {
+            original.setJournal(journal);
+            original.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+                    Angle.fromDegrees(320));
+            original.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+            original.addFileToDevice("DeviceA", "FileAlpha", "Sent after the restore");
+            original.saveSnapshot(snapshot);
+            original.restoreSnapshot(snapshot);
+
+            // Ids from the restore record have to match the ids recorded with the send
+            assertDoesNotThrow(() -> original.sendFile("FileAlpha", "DeviceA", "Standard"));
+            original.simulate(30);
+            original.setJournal(null);
+        }
+
+        BlackoutController replayed = new BlackoutController();
+        assertEquals(6, MutationJournal.replay(path, replayed));
+        assertEquals(original.getInfo("Standard"), replayed.getInfo("Standard"));
+        assertEquals(original.getInfo("DeviceA"), replayed.getInfo("DeviceA"));
+        assertTrue(replayed.getInfo("Standard").getFiles().get("FileAlpha").isFileComplete());
+    }
+
+    @Test
+    public void testTornRecordEndsReplay(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("torn.journal");
+        try (MutationJournal journal = new MutationJournal(path, 10)) {
+            BlackoutController controller = new BlackoutController();
+            controller.setJournal(journal);
+            controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+            controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(175));
+        }
+
+        // A crash part way through writing the last record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        BlackoutController replayed = new BlackoutController();
+        assertEquals(1, MutationJournal.replay(path, replayed));
+        assertEquals(Arrays.asList("DeviceA"), replayed.listDeviceIds());
+    }
+
+    @Test
+    public void testCloseKeepsEveryAcceptedRecord(@TempDir Path directory) throws Exception {
+        // Closing while records are still being appended and committed every millisecond
+        for (int run = 0; run < 150; run++) {
+            Path path = directory.resolve("closing" + run + ".journal");
+            MutationJournal journal = new MutationJournal(path, 1);
+            BlackoutController controller = new BlackoutController();
+            controller.setJournal(journal);
+
+            AtomicInteger accepted = new AtomicInteger();
+            Thread writer = new Thread(() -> {
+                try {
+                    while (true) {
+                        controller.createDevice("Device" + accepted.get(), "HandheldDevice", Angle.fromDegrees(0));
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // The journal closed
+                }
+            });
+            writer.start();
+            Thread.sleep(1 + run % 5);
+            journal.close();
+            writer.join();
+
+            BlackoutController replayed = new BlackoutController();
+            assertEquals(accepted.get(), MutationJournal.replay(path, replayed), "run " + run);
+            // The device whose record was turned away was still created
+            assertEquals(controller.listDeviceIds().subList(0, accepted.get()), replayed.listDeviceIds(), "run " + run);
+        }
+    }
+}
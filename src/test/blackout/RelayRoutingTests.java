@@ -0,0 +1,63 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.Arrays;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class RelayRoutingTests {
+    private BlackoutController createConstellation() {
+        BlackoutController controller = new BlackoutController();
+
+        // The standard satellite is just out of the handheld's range, the relay can see both
+        controller.createSatellite("Relay", "RelaySatellite", 30000 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+        controller.createSatellite("Standard", "StandardSatellite", 30000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(150));
+        controller.createDevice("Handheld", "HandheldDevice", Angle.fromDegrees(180));
+        controller.createDevice("OtherHandheld", "HandheldDevice", Angle.fromDegrees(170));
+        controller.createDevice("Desktop", "DesktopDevice", Angle.fromDegrees(180));
+        return controller;
+    }
+
+    @Test
+    public void testReachThroughRelay() {
+        BlackoutController controller = createConstellation();
+
+        List<String> inRange = controller.communicableEntitiesInRange("Handheld");
+        assertEquals(Arrays.asList("Relay", "Standard"), inRange);
+        // Asking again in the same minute is answered from the route table
+        assertEquals(inRange, controller.communicableEntitiesInRange("Handheld"));
+
+        String msg = "Relayed";
+        controller.addFileToDevice("Handheld", "FileAlpha", msg);
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "Handheld", "Standard"));
+        controller.simulate(msg.length());
+        assertTrue(controller.getInfo("Standard").getFiles().get("FileAlpha").isFileComplete());
+    }
+
+    @Test
+    public void testRelaysKeepContactRules() {
+        BlackoutController controller = createConstellation();
+
+        // Devices never reach each other, even with a relay in between
+        assertFalse(controller.communicableEntitiesInRange("Handheld").contains("OtherHandheld"));
+        assertTrue(controller.communicableEntitiesInRange("Relay").contains("OtherHandheld"));
+
+        // Desktops and standard satellites can't talk, directly or otherwise
+        List<String> desktopInRange = controller.communicableEntitiesInRange("Desktop");
+        assertTrue(desktopInRange.contains("Relay"));
+        assertFalse(desktopInRange.contains("Standard"));
+    }
+}
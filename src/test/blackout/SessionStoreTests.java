@@ -0,0 +1,70 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.SessionStore;
+import unsw.blackout.BlackoutController;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SessionStoreTests {
+    private long now;
+    private List<String> evicted;
+
+    private SessionStore<BlackoutController> createStore(int maxSize) {
+        now = 0;
+        evicted = new ArrayList<String>();
+        return new SessionStore<>(10, TimeUnit.NANOSECONDS, maxSize,
+                (id, bc, cause) -> evicted.add(id + " " + cause), () -> now);
+    }
+
+    @Test
+    public void testSameSessionSameController() {
+        SessionStore<BlackoutController> store = createStore(10);
+        BlackoutController first = store.get("A", BlackoutController::new);
+        assertSame(first, store.get("A", BlackoutController::new));
+        assertNotSame(first, store.get("B", BlackoutController::new));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testIdleSessionsEvicted() {
+        SessionStore<BlackoutController> store = createStore(10);
+        BlackoutController first = store.get("A", BlackoutController::new);
+        now = 5;
+        store.get("B", BlackoutController::new);
+
+        // A has been idle for the full time, B has not
+        now = 10;
+        store.evictIdle();
+        assertEquals(List.of("A IDLE"), evicted);
+        assertEquals(1, store.size());
+
+        // Coming back after eviction starts a new session
+        assertNotSame(first, store.get("A", BlackoutController::new));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedOverMaxSize() {
+        SessionStore<BlackoutController> store = createStore(2);
+        store.get("A", BlackoutController::new);
+        now = 1;
+        store.get("B", BlackoutController::new);
+        now = 2;
+        store.get("A", BlackoutController::new);
+        now = 3;
+        store.get("C", BlackoutController::new);
+
+        assertEquals(List.of("B SIZE"), evicted);
+        assertEquals(2, store.size());
+    }
+}
@@ -0,0 +1,125 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationDeltaTests {
+    private static Map<String, EntityInfoResponse> allEntityInfo(BlackoutController controller) {
+        Map<String, EntityInfoResponse> info = new HashMap<String, EntityInfoResponse>();
+        for (String id : controller.listSatelliteIds()) {
+            info.put(id, controller.getInfo(id));
+        }
+        for (String id : controller.listDeviceIds()) {
+            info.put(id, controller.getInfo(id));
+        }
+        return info;
+    }
+
+    /*
+     * Applies one step of deltas the way SimulationDeltaResponse.RECONSTRUCTION describes
+     */
+    private static Map<String, EntityInfoResponse> apply(Map<String, EntityInfoResponse> step,
+            Map<String, EntityDeltaResponse> deltas) {
+        Map<String, EntityInfoResponse> next = new HashMap<String, EntityInfoResponse>(step);
+        for (Map.Entry<String, EntityDeltaResponse> delta : deltas.entrySet()) {
+            EntityInfoResponse entity = step.get(delta.getKey());
+            EntityDeltaResponse change = delta.getValue();
+
+            Angle position = change.getPosition() != null ? change.getPosition() : entity.getPosition();
+            Map<String, FileInfoResponse> files = new HashMap<String, FileInfoResponse>(entity.getFiles());
+            if (change.getFiles() != null) {
+                files.putAll(change.getFiles());
+            }
+            next.put(delta.getKey(), new EntityInfoResponse(entity.getDeviceId(), position, entity.getHeight(),
+                    entity.getType(), files));
+        }
+        return next;
+    }
+
+    @Test
+    public void testDeltasRebuildEveryStep() {
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Standard", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(320));
+        controller.createSatellite("Relay", "RelaySatellite", 20000 + RADIUS_OF_JUPITER, Angle.fromDegrees(150));
+        controller.createDevice("Handheld", "HandheldDevice", Angle.fromDegrees(320));
+        controller.createDevice("Laptop", "LaptopDevice", Angle.fromDegrees(160));
+
+        // One file arrives byte by byte, then a longer one keeps arriving after the satellite is out of range
+        String shortMsg = "Hey there";
+        String longMsg = "Long enough to still be arriving once the satellite is out of range";
+        controller.addFileToDevice("Handheld", "Short", shortMsg);
+        controller.addFileToDevice("Handheld", "Long", longMsg);
+        controller.addFileToDevice("Laptop", "Untouched", "Never sent");
+        assertDoesNotThrow(() -> controller.sendFile("Short", "Handheld", "Standard"));
+
+        List<Map<String, EntityInfoResponse>> full = new ArrayList<Map<String, EntityInfoResponse>>();
+        List<Map<String, EntityDeltaResponse>> deltas = new ArrayList<Map<String, EntityDeltaResponse>>();
+        controller.simulate();
+        full.add(allEntityInfo(controller));
+        for (int i = 1; i < 60; i++) {
+            if (i == shortMsg.length() + 1) {
+                assertDoesNotThrow(() -> controller.sendFile("Long", "Handheld", "Standard"));
+            }
+            controller.simulate();
+            Map<String, EntityInfoResponse> current = allEntityInfo(controller);
+            deltas.add(SimulationDeltaResponse.diff(full.get(full.size() - 1), current));
+            full.add(current);
+        }
+
+        Map<String, EntityInfoResponse> rebuilt = full.get(0);
+        int progressed = 0;
+        for (int k = 0; k < deltas.size(); k++) {
+            Map<String, EntityDeltaResponse> delta = deltas.get(k);
+            // Devices never move and the untouched file is never listed
+            assertNull(delta.get("Laptop"));
+            if (delta.get("Standard").getFiles() != null) {
+                progressed++;
+            }
+
+            rebuilt = apply(rebuilt, delta);
+            assertEquals(full.get(k + 1), rebuilt, "step " + (k + 2));
+        }
+        // A byte a minute, the short file in steps 2 to 9 and the long one from step 11 on
+        assertEquals(8 + 50, progressed);
+        assertEquals(new FileInfoResponse("Short", shortMsg, shortMsg.length(), true),
+                rebuilt.get("Standard").getFiles().get("Short"));
+        assertTrue(rebuilt.get("Standard").getFiles().get("Long").getData().startsWith("Long enough"));
+    }
+
+    @Test
+    public void testUnchangedEntitiesLeftOut() {
+        BlackoutController controller = new BlackoutController();
+        controller.createDevice("Handheld", "HandheldDevice", Angle.fromDegrees(0));
+        controller.createSatellite("Standard", "StandardSatellite", 10000 + RADIUS_OF_JUPITER, Angle.fromDegrees(90));
+
+        Map<String, EntityInfoResponse> previous = allEntityInfo(controller);
+        controller.simulate();
+        Map<String, EntityDeltaResponse> delta = SimulationDeltaResponse.diff(previous, allEntityInfo(controller));
+
+        // Only the satellite moved, and no file changed
+        assertEquals(1, delta.size());
+        assertEquals(controller.getInfo("Standard").getPosition(), delta.get("Standard").getPosition());
+        assertNull(delta.get("Standard").getFiles());
+    }
+}
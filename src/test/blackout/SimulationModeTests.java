@@ -0,0 +1,215 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationModeTests {
+    private static final List<String> SATELLITES = Arrays.asList("Standard", "Relay", "RelayOutside", "Teleporting");
+
+    private BlackoutController createConstellation() {
+        BlackoutController controller = new BlackoutController();
+
+        controller.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(20));
+        controller.createSatellite("Relay", "RelaySatellite", 100 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+        controller.createSatellite("RelayOutside", "RelaySatellite", 5000 + RADIUS_OF_JUPITER, Angle.fromDegrees(300));
+        controller.createSatellite("Teleporting", "TeleportingSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(0));
+        controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(170));
+
+        return controller;
+    }
+
+    // Same constellation with a device under the teleporting satellite to send files from
+    private BlackoutController createTransferConstellation() {
+        BlackoutController controller = createConstellation();
+        controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(10));
+
+        return controller;
+    }
+
+    private void assertSamePositions(BlackoutController expected, BlackoutController actual) {
+        for (String id : SATELLITES) {
+            assertEquals(expected.getInfo(id), actual.getInfo(id));
+        }
+        assertEquals(expected.communicableEntitiesInRange("DeviceA"), actual.communicableEntitiesInRange("DeviceA"));
+    }
+
+    @Test
+    public void testPackedSimulationMatchesDefault() {
+        BlackoutController expected = createConstellation();
+        BlackoutController packed = createConstellation();
+        packed.setPackedSimulation(true);
+
+        // Check part way through and after the relay has turned and the teleporting satellite has teleported
+        for (int i = 0; i < 10; i++) {
+            expected.simulate(37);
+            packed.simulate(37);
+            assertSamePositions(expected, packed);
+        }
+
+        // Adding a satellite part way through repacks the orbits
+        expected.createSatellite("Late", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(90));
+        packed.createSatellite("Late", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(90));
+        expected.simulate(100);
+        packed.simulate(100);
+        assertSamePositions(expected, packed);
+        assertEquals(expected.getInfo("Late"), packed.getInfo("Late"));
+    }
+
+    @Test
+    public void testParallelSimulationMatchesDefault() {
+        BlackoutController expected = createTransferConstellation();
+        BlackoutController parallel = createTransferConstellation();
+        BlackoutController parallelPacked = createTransferConstellation();
+        parallel.setParallelSimulation(true);
+        parallelPacked.setParallelSimulation(true);
+        parallelPacked.setPackedSimulation(true);
+
+        // Transfers progress the same way once the movement phase has finished
+        String msg = "Hello from the surface";
+        for (BlackoutController controller : Arrays.asList(expected, parallel, parallelPacked)) {
+            controller.addFileToDevice("DeviceB", "FileAlpha", msg);
+            assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceB", "Teleporting"));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            expected.simulate(3);
+            parallel.simulate(3);
+            parallelPacked.simulate(3);
+            assertSamePositions(expected, parallel);
+            assertSamePositions(expected, parallelPacked);
+            assertEquals(expected.getInfo("Teleporting").getFiles(), parallel.getInfo("Teleporting").getFiles());
+            assertEquals(expected.getInfo("Teleporting").getFiles(), parallelPacked.getInfo("Teleporting").getFiles());
+        }
+        assertEquals(new FileInfoResponse("FileAlpha", msg, msg.length(), true),
+                parallel.getInfo("Teleporting").getFiles().get("FileAlpha"));
+    }
+
+    @Test
+    public void testFastForwardMatchesStepping() {
+        BlackoutController expected = createTransferConstellation();
+        BlackoutController fastForward = createTransferConstellation();
+        fastForward.setFastForward(true);
+
+        String msg = "A file that takes a few minutes to download";
+        for (BlackoutController controller : Arrays.asList(expected, fastForward)) {
+            controller.addFileToDevice("DeviceB", "FileAlpha", msg);
+            assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceB", "Teleporting"));
+        }
+
+        expected.simulate(2);
+        fastForward.simulate(2);
+        assertEquals(expected.getInfo("Teleporting").getFiles(), fastForward.getInfo("Teleporting").getFiles());
+
+        // A week, covering the file completing, relay bounces inside and outside the window and the teleport
+        expected.simulate(10080);
+        fastForward.simulate(10080);
+        for (String id : SATELLITES) {
+            assertEquals(expected.getInfo(id), fastForward.getInfo(id));
+        }
+        assertEquals(new FileInfoResponse("FileAlpha", msg, msg.length(), true),
+                fastForward.getInfo("Teleporting").getFiles().get("FileAlpha"));
+    }
+
+    @Test
+    public void testFastForwardRelaysMatchSteppingAtWindowEdges() {
+        double[] positions = { 140, 190, 139, 141, 189, 191, 165, 300, 345 };
+        double[] heights = { 100, 8100, 37100, 44100, 45100, 73100 };
+        for (double position : positions) {
+            for (double height : heights) {
+                // One relay each, so no other satellite stops the jumps
+                BlackoutController expected = new BlackoutController();
+                BlackoutController fastForward = new BlackoutController();
+                fastForward.setFastForward(true);
+                for (BlackoutController controller : Arrays.asList(expected, fastForward)) {
+                    controller.createSatellite("Relay", "RelaySatellite", height + RADIUS_OF_JUPITER,
+                            Angle.fromDegrees(position));
+                }
+
+                // Odd and even jumps, relays outside the window come back to the same place every two minutes
+                for (int minutes : Arrays.asList(1, 1440, 7, 2, 10080)) {
+                    expected.simulate(minutes);
+                    fastForward.simulate(minutes);
+                    assertEquals(expected.getInfo("Relay").getPosition().toRadians(),
+                            fastForward.getInfo("Relay").getPosition().toRadians(), position + " at " + height);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFastForwardMatchesSteppingOverWeeks() {
+        double[] positions = { 0, 1, 90, 179, 180, 181, 270, 359 };
+        double[] heights = { 100, 1000, 8100, 37100, 73100 };
+        for (String type : Arrays.asList("StandardSatellite", "TeleportingSatellite")) {
+            for (double position : positions) {
+                for (double height : heights) {
+                    BlackoutController expected = new BlackoutController();
+                    BlackoutController fastForward = new BlackoutController();
+                    fastForward.setFastForward(true);
+                    for (BlackoutController controller : Arrays.asList(expected, fastForward)) {
+                        controller.createSatellite("Satellite", type, height + RADIUS_OF_JUPITER,
+                                Angle.fromDegrees(position));
+                    }
+
+                    // Past zero, through several powers of two and past where standard satellites wrap
+                    for (int minutes : Arrays.asList(1, 10080, 3, 10080)) {
+                        expected.simulate(minutes);
+                        fastForward.simulate(minutes);
+                        assertEquals(expected.getInfo("Satellite").getPosition().toRadians(),
+                                fastForward.getInfo("Satellite").getPosition().toRadians(),
+                                type + " from " + position + " at " + height);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsMatchSequential() throws Exception {
+        BlackoutController expected = createConstellation();
+        BlackoutController concurrent = createConstellation();
+        concurrent.setPackedSimulation(true);
+        expected.simulate(50);
+        concurrent.simulate(50);
+
+        // Every reader races to sync the packed orbits and rebuild the spatial index
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < 64; i++) {
+                String id = SATELLITES.get(i % SATELLITES.size());
+                Callable<List<String>> read = () -> {
+                    concurrent.getInfo(id);
+                    return concurrent.communicableEntitiesInRange(id);
+                };
+                results.add(pool.submit(read));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String id = SATELLITES.get(i % SATELLITES.size());
+                assertEquals(expected.communicableEntitiesInRange(id), results.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertSamePositions(expected, concurrent);
+    }
+}
@@ -0,0 +1,103 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SnapshotTests {
+    private static final List<String> IDS = Arrays.asList("Standard", "Relay", "Teleporting", "DeviceA", "DeviceB");
+
+    private BlackoutController createConstellation() {
+        BlackoutController controller = new BlackoutController();
+
+        controller.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+        controller.createSatellite("Relay", "RelaySatellite", 100 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+        controller.createSatellite("Teleporting", "TeleportingSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(170));
+        controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+        controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(175));
+
+        controller.addFileToDevice("DeviceA", "FileAlpha", "Sent to the standard satellite");
+        controller.addFileToDevice("DeviceB", "FileBeta",
+                "Sent to the teleporting satellite, \u00fcn\u00efc\u00f6d\u00e9 ".repeat(4));
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceA", "Standard"));
+        assertDoesNotThrow(() -> controller.sendFile("FileBeta", "DeviceB", "Teleporting"));
+        return controller;
+    }
+
+    @Test
+    public void testRestoredControllerCarriesOn(@TempDir Path directory) throws IOException {
+        BlackoutController expected = createConstellation();
+        BlackoutController original = createConstellation();
+
+        // Save part way through the transfers and after the teleporting satellite has turned around
+        expected.simulate(5);
+        original.simulate(5);
+        assertFalse(original.getInfo("Standard").getFiles().get("FileAlpha").isFileComplete());
+        assertFalse(original.getInfo("Teleporting").getFiles().get("FileBeta").isFileComplete());
+        Path path = directory.resolve("constellation.snapshot");
+        original.saveSnapshot(path);
+
+        BlackoutController restored = new BlackoutController();
+        restored.createDevice("Leftover", "DesktopDevice", Angle.fromDegrees(0));
+        restored.restoreSnapshot(path);
+        assertEquals(expected.listDeviceIds(), restored.listDeviceIds());
+        assertEquals(expected.listSatelliteIds(), restored.listSatelliteIds());
+
+        for (int i = 0; i < 20; i++) {
+            for (String id : IDS) {
+                assertEquals(expected.getInfo(id), restored.getInfo(id));
+            }
+            expected.simulate(3);
+            restored.simulate(3);
+        }
+        assertEquals(expected.communicableEntitiesInRange("DeviceB"), restored.communicableEntitiesInRange("DeviceB"));
+        assertTrue(restored.getInfo("Standard").getFiles().get("FileAlpha").isFileComplete());
+        assertTrue(restored.getInfo("Teleporting").getFiles().get("FileBeta").isFileComplete());
+    }
+
+    @Test
+    public void testSendAfterRestore(@TempDir Path directory) throws IOException {
+        BlackoutController original = new BlackoutController();
+        original.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+        original.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+        original.addFileToDevice("DeviceA", "FileAlpha", "Sent after the restore");
+        Path path = directory.resolve("constellation.snapshot");
+        original.saveSnapshot(path);
+
+        // Restored ids are read back as new strings, the transfer has to start all the same
+        BlackoutController restored = new BlackoutController();
+        restored.restoreSnapshot(path);
+        for (BlackoutController controller : Arrays.asList(original, restored)) {
+            assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceA", "Standard"));
+            controller.simulate(30);
+        }
+        assertEquals(original.getInfo("Standard"), restored.getInfo("Standard"));
+        assertTrue(restored.getInfo("Standard").getFiles().get("FileAlpha").isFileComplete());
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("not-a-snapshot");
+        Files.write(path, "Hello".getBytes());
+        assertThrows(IOException.class, () -> new BlackoutController().restoreSnapshot(path));
+    }
+}
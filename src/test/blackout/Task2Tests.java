@@ -6,11 +6,15 @@ import org.junit.jupiter.api.TestInstance.Lifecycle;
 
 import unsw.blackout.BlackoutController;
 import unsw.blackout.FileTransferException;
+import unsw.response.models.EntityInfoResponse;
 import unsw.response.models.FileInfoResponse;
 import unsw.utils.Angle;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
 
@@ -60,6 +64,26 @@ public class Task2Tests {
                 () -> controller.sendFile("fileOk", "DeviceB", "Satellite1"));
     }
 
+    @Test
+    public void testAddingFileAgainReplacesIt() {
+        BlackoutController controller = new BlackoutController();
+
+        // Adding a file with a name already on the device replaces the old one, which is what gets sent
+        controller.createSatellite("Satellite1", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(320));
+        controller.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(320));
+        controller.addFileToDevice("DeviceC", "FileAlpha", "Old content");
+        String msg = "New";
+        controller.addFileToDevice("DeviceC", "FileAlpha", msg);
+        assertEquals(new FileInfoResponse("FileAlpha", msg, msg.length(), true),
+                controller.getInfo("DeviceC").getFiles().get("FileAlpha"));
+
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceC", "Satellite1"));
+        controller.simulate(msg.length());
+        assertEquals(new FileInfoResponse("FileAlpha", msg, msg.length(), true),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+    }
+
     @Test
     public void testStandardToDesktop() {
         BlackoutController controller = new BlackoutController();
@@ -155,4 +179,62 @@ public class Task2Tests {
         controller.simulate(msg.length() * 2);
         assertEquals(null, controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
     }
+
+    @Test
+    public void testPartialTransferProgress() {
+        BlackoutController controller = new BlackoutController();
+
+        // Creates 1 satellite and 1 device
+        // Checks the data received so far part way through a transfer
+        controller.createSatellite("Satellite1", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(320));
+        controller.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(320));
+
+        String msg = "Hey";
+        controller.addFileToDevice("DeviceC", "FileAlpha", msg);
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceC", "Satellite1"));
+        assertEquals(new FileInfoResponse("FileAlpha", "", msg.length(), false),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+
+        // StandardSatellites receive 1 byte per minute
+        controller.simulate();
+        assertEquals(new FileInfoResponse("FileAlpha", "H", msg.length(), false),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+        controller.simulate();
+        assertEquals(new FileInfoResponse("FileAlpha", "He", msg.length(), false),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+        // The partial content is a view over the file rather than a copy
+        assertFalse(controller.getInfo("Satellite1").getFiles().get("FileAlpha").getDataView() instanceof String);
+        controller.simulate();
+        assertEquals(new FileInfoResponse("FileAlpha", msg, msg.length(), true),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+    }
+
+    @Test
+    public void testInfoReusedUntilChanged() {
+        BlackoutController controller = new BlackoutController();
+
+        // Creates 1 satellite and 1 device
+        // Info is only rebuilt once something it shows has changed
+        controller.createSatellite("Satellite1", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(320));
+        controller.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(320));
+        assertSame(controller.getInfo("DeviceC"), controller.getInfo("DeviceC"));
+        assertSame(controller.getInfo("Satellite1"), controller.getInfo("Satellite1"));
+
+        // Adding a file
+        EntityInfoResponse before = controller.getInfo("DeviceC");
+        controller.addFileToDevice("DeviceC", "FileAlpha", "Hey");
+        assertNotSame(before, controller.getInfo("DeviceC"));
+
+        // Moving and transfers progressing, the device itself hasn't changed
+        assertDoesNotThrow(() -> controller.sendFile("FileAlpha", "DeviceC", "Satellite1"));
+        before = controller.getInfo("DeviceC");
+        EntityInfoResponse satelliteBefore = controller.getInfo("Satellite1");
+        controller.simulate();
+        assertSame(before, controller.getInfo("DeviceC"));
+        assertNotSame(satelliteBefore, controller.getInfo("Satellite1"));
+        assertEquals(new FileInfoResponse("FileAlpha", "H", 3, false),
+                controller.getInfo("Satellite1").getFiles().get("FileAlpha"));
+    }
 }
@@ -0,0 +1,142 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class VisibilityGraphTests {
+    private static final String[] SATELLITE_TYPES = { "StandardSatellite", "RelaySatellite",
+        "TeleportingSatellite" };
+    private static final String[] DEVICE_TYPES = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+
+    @Test
+    public void testIncrementalMatchesFresh(@TempDir Path directory) throws IOException {
+        Random random = new Random(24);
+        BlackoutController controller = new BlackoutController();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 30; i++) {
+            String id = "Satellite" + i;
+            controller.createSatellite(id, SATELLITE_TYPES[i % 3], RADIUS_OF_JUPITER + 1000 + random.nextInt(80000),
+                    Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+        for (int i = 0; i < 20; i++) {
+            String id = "Device" + i;
+            controller.createDevice(id, DEVICE_TYPES[i % 3], Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+
+        // Long enough for teleports, relays bouncing and links coming and going
+        Path path = directory.resolve("fresh.snapshot");
+        int changes = 0;
+        List<List<String>> previous = null;
+        for (int minute = 0; minute < 400; minute++) {
+            List<List<String>> incremental = new ArrayList<List<String>>();
+            for (String id : ids) {
+                incremental.add(controller.communicableEntitiesInRange(id));
+            }
+
+            if (minute % 5 == 0) {
+                controller.saveSnapshot(path);
+                BlackoutController fresh = new BlackoutController();
+                fresh.restoreSnapshot(path);
+                for (int i = 0; i < ids.size(); i++) {
+                    assertEquals(fresh.communicableEntitiesInRange(ids.get(i)), incremental.get(i),
+                            ids.get(i) + " at minute " + minute);
+                }
+            }
+            if (!incremental.equals(previous)) {
+                changes++;
+            }
+            previous = incremental;
+            controller.simulate();
+        }
+        assertTrue(changes > 20);
+    }
+
+    @Test
+    public void testTeleportJoinsNearbyEntities(@TempDir Path directory) throws IOException {
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Teleporting", "TeleportingSatellite", 10000 + RADIUS_OF_JUPITER,
+                Angle.fromDegrees(175));
+        controller.createDevice("Device", "HandheldDevice", Angle.fromDegrees(0));
+
+        // The satellite starts on the far side of Jupiter and teleports to right above the device
+        Path path = directory.resolve("fresh.snapshot");
+        boolean seen = false;
+        for (int minute = 0; minute < 20; minute++) {
+            List<String> inRange = controller.communicableEntitiesInRange("Device");
+            controller.saveSnapshot(path);
+            BlackoutController fresh = new BlackoutController();
+            fresh.restoreSnapshot(path);
+            assertEquals(fresh.communicableEntitiesInRange("Device"), inRange, "minute " + minute);
+            seen |= inRange.contains("Teleporting");
+            controller.simulate();
+        }
+        assertTrue(seen);
+    }
+
+    @Test
+    public void testStandardSatellitesWrappingRejoin(@TempDir Path directory) throws IOException {
+        Random random = new Random(10167);
+        BlackoutController controller = new BlackoutController();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            String id = "Satellite" + i;
+            controller.createSatellite(id, "StandardSatellite", RADIUS_OF_JUPITER + 1000 + random.nextInt(3000),
+                    Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+        for (int i = 0; i < 8; i++) {
+            String id = "Device" + i;
+            controller.createDevice(id, "HandheldDevice", Angle.fromDegrees(random.nextInt(360)));
+            ids.add(id);
+        }
+
+        // Low orbits reach 360 radians after about 10000 minutes and wrap round with % 360
+        Path path = directory.resolve("fresh.snapshot");
+        int wraps = 0;
+        for (int minute = 0; minute < 11000; minute++) {
+            if (minute % 1000 == 0 || minute >= 9900) {
+                controller.saveSnapshot(path);
+                BlackoutController fresh = new BlackoutController();
+                fresh.restoreSnapshot(path);
+                for (String id : ids) {
+                    assertEquals(fresh.communicableEntitiesInRange(id), controller.communicableEntitiesInRange(id),
+                            id + " at minute " + minute);
+                }
+            } else {
+                for (String id : ids) {
+                    controller.communicableEntitiesInRange(id);
+                }
+            }
+
+            double[] before = new double[6];
+            for (int i = 0; i < 6; i++) {
+                before[i] = controller.getInfo(ids.get(i)).getPosition().toRadians();
+            }
+            controller.simulate();
+            for (int i = 0; i < 6; i++) {
+                if (controller.getInfo(ids.get(i)).getPosition().toRadians() > before[i]) {
+                    wraps++;
+                }
+            }
+        }
+        assertEquals(6, wraps);
+    }
+}